@@ -0,0 +1,6 @@
+-- Revision counter bumped on every write of a cart row. Checkout quotes record the
+-- revision they priced and are only honoured while the cart is still at that revision.
+ALTER TABLE carts ADD COLUMN revision BIGINT NOT NULL DEFAULT 0;
+
+-- Verify the column
+DESCRIBE carts;
@@ -0,0 +1,6 @@
+-- Index used by the abandoned-cart reaper to find idle ACTIVE carts in small batches
+-- without scanning the whole carts table.
+CREATE INDEX idx_carts_status_updated_at ON carts (status, updated_at);
+
+-- Verify the index
+SHOW INDEX FROM carts;
@@ -0,0 +1,23 @@
+-- Running totals stored on each cart, maintained by every cart mutation so that
+-- reads do no per-item arithmetic and carts can be filtered by value through an index.
+ALTER TABLE carts
+    ADD COLUMN subtotal DECIMAL(19,2) NOT NULL DEFAULT 0,
+    ADD COLUMN item_count INT NOT NULL DEFAULT 0,
+    ADD COLUMN gst_amount DECIMAL(19,2) NOT NULL DEFAULT 0;
+
+-- Backfill from the existing cart items (GST at the default 18% rate)
+UPDATE carts c
+    LEFT JOIN (
+        SELECT cart_id, SUM(price * quantity) AS line_total, SUM(quantity) AS units
+        FROM cart_items
+        GROUP BY cart_id
+    ) t ON t.cart_id = c.id
+SET c.subtotal = ROUND(COALESCE(t.line_total, 0), 2),
+    c.item_count = COALESCE(t.units, 0),
+    c.gst_amount = ROUND(COALESCE(t.line_total, 0) * 0.18, 2);
+
+CREATE INDEX idx_carts_status_subtotal ON carts (status, subtotal);
+
+-- Verify the columns and index
+DESCRIBE carts;
+SHOW INDEX FROM carts;
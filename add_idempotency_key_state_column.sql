@@ -0,0 +1,8 @@
+-- Idempotency keys are claimed with an IN_PROGRESS row before the request runs, so a retry that
+-- reaches another instance waits for the first attempt instead of running the request again.
+-- The status code and body are only known once the request completes.
+ALTER TABLE idempotency_keys ADD COLUMN state VARCHAR(20) NOT NULL DEFAULT 'COMPLETED';
+ALTER TABLE idempotency_keys MODIFY status_code INT NULL;
+
+-- Verify the columns
+DESCRIBE idempotency_keys;
@@ -0,0 +1,7 @@
+-- Indexes used by the cursor (keyset) order listings, which seek to (order_date, id)
+-- instead of skipping OFFSET rows; one for the admin listing, one for a user's history.
+CREATE INDEX idx_orders_order_date_id ON orders (order_date, id);
+CREATE INDEX idx_orders_user_order_date_id ON orders (user_id, order_date, id);
+
+-- Verify the indexes
+SHOW INDEX FROM orders;
@@ -0,0 +1,23 @@
+-- Table-backed id generation for orders, order_items, cart_items, admin_notifications and reviews.
+-- These entities no longer use AUTO_INCREMENT ids so that Hibernate can batch their inserts.
+-- Run before deploying the new build: each row must start above the table's current MAX(id).
+CREATE TABLE IF NOT EXISTS id_generators (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
+
+-- Hibernate's pooled optimizer hands out the 50 ids ending just below the stored value,
+-- so each row is seeded one allocation block (50) above the current maximum.
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'orders', COALESCE(MAX(id), 0) + 51 FROM orders;
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'order_items', COALESCE(MAX(id), 0) + 51 FROM order_items;
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'cart_items', COALESCE(MAX(id), 0) + 51 FROM cart_items;
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'admin_notifications', COALESCE(MAX(id), 0) + 51 FROM admin_notifications;
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'reviews', COALESCE(MAX(id), 0) + 51 FROM reviews;
+
+-- Verify the seed
+SELECT * FROM id_generators;
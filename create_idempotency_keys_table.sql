@@ -0,0 +1,16 @@
+-- Create idempotency_keys table (stored responses for requests sent with an Idempotency-Key header)
+-- Rows expire after app.idempotency.ttl-hours and are purged by a scheduled job.
+CREATE TABLE idempotency_keys (
+    record_key VARCHAR(255) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    endpoint VARCHAR(50) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INT NOT NULL,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    INDEX idx_idempotency_keys_expires_at (expires_at)
+);
+
+-- Verify the table
+DESCRIBE idempotency_keys;
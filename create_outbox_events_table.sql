@@ -0,0 +1,19 @@
+-- Create outbox_events table (transactional outbox for order notifications and emails)
+-- Rows are written in the same transaction as the order change and delivered after commit.
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP NULL,
+    CONSTRAINT uk_outbox_events_type_aggregate UNIQUE (event_type, aggregate_id),
+    INDEX idx_outbox_events_status_next_attempt (status, next_attempt_at)
+);
+
+-- Verify the table
+DESCRIBE outbox_events;
@@ -0,0 +1,19 @@
+-- Create product_reservations table (stock reservation ledger)
+-- Holds the total quantity of each product sitting in ACTIVE carts so that
+-- available stock can be read with a single primary-key lookup.
+CREATE TABLE product_reservations (
+    product_id BIGINT PRIMARY KEY,
+    reserved_quantity INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Seed the ledger from the carts that are active right now
+INSERT INTO product_reservations (product_id, reserved_quantity, updated_at)
+SELECT ci.product_id, SUM(ci.quantity), CURRENT_TIMESTAMP
+FROM cart_items ci
+JOIN carts c ON c.id = ci.cart_id
+WHERE c.status = 'ACTIVE'
+GROUP BY ci.product_id;
+
+-- Verify the seed
+SELECT product_id, reserved_quantity FROM product_reservations ORDER BY product_id;
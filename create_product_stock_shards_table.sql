@@ -0,0 +1,16 @@
+-- Hot-stock mode: split a product's stock across several counter rows so that
+-- concurrent checkouts of the same product lock different rows.
+ALTER TABLE products ADD COLUMN hot_stock_enabled BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE product_stock_shards (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    shard_index INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_product_stock_shard UNIQUE (product_id, shard_index),
+    INDEX idx_product_stock_shards_product (product_id)
+);
+
+-- Verify the changes
+DESCRIBE products;
+DESCRIBE product_stock_shards;
@@ -111,6 +111,21 @@ public class JwtUtil {
         return extractExpiration(token).before(new Date());
     }
 
+    /**
+     * Signs arbitrary claims with the application key, e.g. checkout quotes.
+     */
+    public String generateSignedToken(Map<String, Object> claims, String subject, long validityMs) {
+        return createToken(claims, subject, validityMs);
+    }
+
+    /**
+     * Verifies a token signed with the application key and returns its claims.
+     * Throws a JwtException if the signature is invalid or the token has expired.
+     */
+    public Claims parseSignedToken(String token) {
+        return extractAllClaims(token);
+    }
+
     public long getExpiration() {
         return expiration;
     }
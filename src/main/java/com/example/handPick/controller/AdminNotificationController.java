@@ -3,6 +3,7 @@ package com.example.handPick.controller;
 import com.example.handPick.model.AdminNotification;
 import com.example.handPick.service.NotificationService;
 import com.example.handPick.service.EmailNotificationService;
+import com.example.handPick.service.OutboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/notifications")
@@ -24,6 +26,9 @@ public class AdminNotificationController {
     
     @Autowired
     private EmailNotificationService emailNotificationService;
+    
+    @Autowired
+    private OutboxService outboxService;
 
     /**
      * GET /api/admin/notifications/test-auth
@@ -131,4 +136,17 @@ public class AdminNotificationController {
             return ResponseEntity.status(500).body("Failed to send test email: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * GET /api/admin/notifications/outbox/stats
+     * Delivery status of queued order notifications and emails
+     */
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<Map<String, Long>> getOutboxStats() {
+        try {
+            return ResponseEntity.ok(outboxService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+}
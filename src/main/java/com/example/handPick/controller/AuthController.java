@@ -9,6 +9,7 @@ import com.example.handPick.dto.ResetPasswordRequest;
 import com.example.handPick.model.RefreshToken;
 import com.example.handPick.model.User;
 import com.example.handPick.service.CartService;
+import com.example.handPick.service.GuestCartService;
 import com.example.handPick.service.RefreshTokenService;
 import com.example.handPick.service.UserService;
 import com.example.handPick.service.PasswordResetService;
@@ -33,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -130,9 +132,12 @@ public class AuthController {
 
     /**
      * Handles user login. Authenticates user and issues tokens.
+     * A guest cart named in the Guest-Cart-Id header is merged into the user's cart.
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request, HttpServletResponse httpResponse) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+                                              @RequestHeader(value = GuestCartService.HEADER, required = false) String guestCartId,
+                                              HttpServletResponse httpResponse) {
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getMobileNumber(), request.getPassword())
@@ -149,6 +154,15 @@ public class AuthController {
 
             setAuthCookies(httpResponse, accessToken, refreshToken.getToken(), jwtUtil.getExpiration(), (int)(jwtUtil.getRefreshExpiration() / 1000));
 
+            if (guestCartId != null && !guestCartId.isBlank()) {
+                // A failed merge must not fail the login; the guest cart stays available
+                try {
+                    cartService.mergeGuestCart(loggedInUser, UUID.fromString(guestCartId));
+                } catch (RuntimeException e) {
+                    logger.warn("Could not merge guest cart {} for user {}: {}", guestCartId, loggedInUser.getId(), e.getMessage());
+                }
+            }
+
             HttpHeaders headers = new HttpHeaders();
             headers.add("Authorization", "Bearer " + accessToken);
 
@@ -2,17 +2,28 @@ package com.example.handPick.controller;
 
 import com.example.handPick.config.JwtUtil;
 import com.example.handPick.dto.AddToCartRequest;
+import com.example.handPick.dto.CartBulkUpdateRequest;
 import com.example.handPick.dto.CartDto;
+import com.example.handPick.dto.CartRevalidationResponse;
+import com.example.handPick.dto.CheckoutQuoteRequest;
 import com.example.handPick.dto.CheckoutRequest;
 import com.example.handPick.dto.CheckoutResponse;
 import com.example.handPick.dto.QuantityUpdateRequest;
+import com.example.handPick.exception.CheckoutRejectedException;
 import com.example.handPick.model.Order;
 import com.example.handPick.model.User;
+import com.example.handPick.service.CartCountService;
 import com.example.handPick.service.CartService;
+import com.example.handPick.service.CartWriteCoalescer;
+import com.example.handPick.service.CheckoutBatchPipeline;
+import com.example.handPick.service.CheckoutAdmissionService;
+import com.example.handPick.service.GuestCartService;
+import com.example.handPick.service.IdempotencyService;
 import com.example.handPick.service.UserService;
 import com.example.handPick.service.UserAddressService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,6 +36,8 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/cart")
@@ -36,16 +49,34 @@ public class CartController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final UserAddressService userAddressService;
+    private final IdempotencyService idempotencyService;
+    private final CheckoutAdmissionService checkoutAdmissionService;
+    private final CheckoutBatchPipeline checkoutBatchPipeline;
+    private final CartCountService cartCountService;
+    private final GuestCartService guestCartService;
+    private final CartWriteCoalescer cartWriteCoalescer;
 
     @Autowired
     public CartController(CartService cartService,
                           UserService userService,
                           JwtUtil jwtUtil,
-                          UserAddressService userAddressService) {
+                          UserAddressService userAddressService,
+                          IdempotencyService idempotencyService,
+                          CheckoutAdmissionService checkoutAdmissionService,
+                          CheckoutBatchPipeline checkoutBatchPipeline,
+                          CartCountService cartCountService,
+                          GuestCartService guestCartService,
+                          CartWriteCoalescer cartWriteCoalescer) {
         this.cartService = cartService;
         this.userService = userService;
         this.jwtUtil = jwtUtil;
         this.userAddressService = userAddressService;
+        this.idempotencyService = idempotencyService;
+        this.checkoutAdmissionService = checkoutAdmissionService;
+        this.checkoutBatchPipeline = checkoutBatchPipeline;
+        this.cartCountService = cartCountService;
+        this.guestCartService = guestCartService;
+        this.cartWriteCoalescer = cartWriteCoalescer;
     }
 
     /**
@@ -67,6 +98,7 @@ public class CartController {
 
     /**
      * Retrieves the current user's shopping cart item count.
+     * Read-only: served from a per-user cached counter or a single SUM query.
      * GET /api/cart/count
      */
     @GetMapping("/count")
@@ -78,17 +110,58 @@ public class CartController {
         if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        CartDto cart = cartService.getCart(currentUser, null);
-        return ResponseEntity.ok(cart.getTotalItems());
+        return ResponseEntity.ok(cartCountService.getItemCount(currentUser.getId()));
     }
 
     /**
      * Adds an item to the current user's cart.
+     * A retried request carrying the same Idempotency-Key replays the first response.
      * POST /api/cart/add
      */
     @PostMapping("/add")
     public ResponseEntity<CartDto> addItemToCart(
             @Valid @RequestBody AddToCartRequest reqDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User currentUser = userService.findByMobileNumber(userDetails.getUsername()).orElse(null);
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return idempotencyService.execute(currentUser.getId(), "cart.add", idempotencyKey, reqDto, CartDto.class, () -> {
+            try {
+                CartDto updated = cartService.addItemToCart(currentUser, reqDto);
+                logger.info("Item added to cart. Product ID: {}, Quantity: {}", reqDto.getProductId(), reqDto.getQuantity());
+                return ResponseEntity.ok(updated);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Failed to add item to cart: {}", ex.getMessage());
+                CartDto error = new CartDto(
+                        null, Collections.emptyList(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, null, ex.getMessage()
+                );
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            } catch (Exception ex) {
+                logger.error("Server error while adding item to cart: {}", ex.getMessage(), ex);
+                CartDto error = new CartDto(
+                        null, Collections.emptyList(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, null, "Server error: " + ex.getMessage()
+                );
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+            }
+        });
+    }
+
+    /**
+     * Applies several add / set / remove operations to the current user's cart in one transaction.
+     * Either every operation is applied or none is.
+     * PATCH /api/cart/items
+     */
+    @PatchMapping("/items")
+    public ResponseEntity<CartDto> applyItemOperations(
+            @Valid @RequestBody CartBulkUpdateRequest reqDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         if (userDetails == null) {
@@ -99,27 +172,72 @@ public class CartController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
+        return idempotencyService.execute(currentUser.getId(), "cart.items", idempotencyKey, reqDto, CartDto.class, () -> {
+            try {
+                CartDto updated = cartService.applyItemOperations(currentUser, reqDto.getOperations());
+                logger.info("Applied {} cart operation(s) for user {}", reqDto.getOperations().size(), currentUser.getId());
+                return ResponseEntity.ok(updated);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Failed to apply cart operations: {}", ex.getMessage());
+                CartDto error = new CartDto(
+                        null, Collections.emptyList(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, null, ex.getMessage()
+                );
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            } catch (Exception ex) {
+                logger.error("Server error while applying cart operations: {}", ex.getMessage(), ex);
+                CartDto error = new CartDto(
+                        null, Collections.emptyList(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, null, "Server error: " + ex.getMessage()
+                );
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+            }
+        });
+    }
+
+    /**
+     * Prices the current user's cart for the review step and returns a signed, short-lived quote.
+     * Passing the quote token to checkout skips repricing while the cart is unchanged.
+     * POST /api/cart/quote
+     */
+    @PostMapping("/quote")
+    public ResponseEntity<?> quoteCheckout(
+            @Valid @RequestBody CheckoutQuoteRequest reqDto,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User currentUser = userService.findByMobileNumber(userDetails.getUsername()).orElse(null);
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
         try {
-            CartDto updated = cartService.addItemToCart(currentUser, reqDto);
-            logger.info("Item added to cart. Product ID: {}, Quantity: {}", reqDto.getProductId(), reqDto.getQuantity());
-            return ResponseEntity.ok(updated);
+            return ResponseEntity.ok(cartService.quoteCheckout(currentUser, reqDto));
         } catch (IllegalArgumentException ex) {
-            logger.error("Failed to add item to cart: {}", ex.getMessage());
-            CartDto error = new CartDto(
-                    null, Collections.emptyList(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, null, ex.getMessage()
-            );
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-        } catch (Exception ex) {
-            logger.error("Server error while adding item to cart: {}", ex.getMessage(), ex);
-            CartDto error = new CartDto(
-                    null, Collections.emptyList(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, null, "Server error: " + ex.getMessage()
-            );
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+            logger.error("Failed to quote checkout: {}", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    /**
+     * Reprices the current user's cart and trims lines that no longer fit the available stock.
+     * The response lists every line whose price or quantity changed.
+     * POST /api/cart/revalidate
+     */
+    @PostMapping("/revalidate")
+    public ResponseEntity<CartRevalidationResponse> revalidateCart(@AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        User currentUser = userService.findByMobileNumber(userDetails.getUsername()).orElse(null);
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(cartService.revalidateCart(currentUser));
     }
 
     /**
      * Updates the quantity of an item in the current user's cart.
+     * With write coalescing enabled the change is queued and persisted together with
+     * any further changes made within the coalescing window.
      * PUT /api/cart/item/{productId}
      */
     @PutMapping("/item/{productId}")
@@ -137,8 +255,9 @@ public class CartController {
         }
 
         try {
-            CartDto updated = cartService.updateItemQuantity(
-                    currentUser, null, productId, reqDto.getQuantity());
+            CartDto updated = cartWriteCoalescer.isEnabled()
+                    ? cartService.queueItemQuantity(currentUser, productId, reqDto.getQuantity())
+                    : cartService.updateItemQuantity(currentUser, null, productId, reqDto.getQuantity());
             logger.info("Cart item quantity updated for Product ID: {} to Quantity: {}", productId, reqDto.getQuantity());
             return ResponseEntity.ok(updated);
         } catch (IllegalArgumentException ex) {
@@ -214,12 +333,14 @@ public class CartController {
 
     /**
      * Handles the checkout process for an authenticated user.
+     * A retried request carrying the same Idempotency-Key returns the original order instead of placing a new one.
      * POST /api/cart/checkout
      */
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/checkout")
     public ResponseEntity<CheckoutResponse> checkoutCart(
             @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CheckoutRequest checkoutRequest) {
 
         logger.info("=== CHECKOUT DEBUG ===");
@@ -237,26 +358,177 @@ public class CartController {
                     .body(new CheckoutResponse(null, "User not authenticated", false));
         }
 
+        User currentUser = userService.findByMobileNumber(userDetails.getUsername()).orElse(null);
+        if (currentUser == null) {
+            logger.error("Server error during checkout: User not found during checkout.");
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new CheckoutResponse(null, "Server error during checkout", false));
+        }
+
+        return idempotencyService.execute(currentUser.getId(), "cart.checkout", idempotencyKey, checkoutRequest,
+                CheckoutResponse.class, () -> {
+            try {
+                CheckoutAdmissionService.Admission admission = checkoutAdmissionService.admit(currentUser.getId());
+                Order order;
+                try {
+                    order = checkoutBatchPipeline.isEnabled()
+                            ? checkoutBatchPipeline.checkout(currentUser, checkoutRequest)
+                            : cartService.checkoutCart(currentUser, checkoutRequest);
+                } finally {
+                    admission.close();
+                }
+                logger.info("Checkout successful for user {}. Order ID: {}", currentUser.getMobileNumber(), order.getId());
+
+                return ResponseEntity.ok(new CheckoutResponse(order.getId(), "Order placed successfully!", true));
+
+            } catch (CheckoutRejectedException ex) {
+                logger.warn("Checkout for user {} rejected by admission queue: {}", currentUser.getMobileNumber(), ex.getMessage());
+                return ResponseEntity
+                        .status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                        .body(new CheckoutResponse(null, ex.getMessage(), false, ex.getQueuePosition()));
+            } catch (IllegalArgumentException ex) {
+                logger.error("Checkout failed due to invalid request: {}", ex.getMessage());
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(new CheckoutResponse(null, ex.getMessage(), false));
+            } catch (Exception ex) {
+                logger.error("Server error during checkout: {}", ex.getMessage(), ex);
+                return ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new CheckoutResponse(null, "Server error during checkout", false));
+            }
+        });
+    }
+
+    /**
+     * Write-coalescing settings and counters (admin only).
+     * GET /api/cart/write-coalescing-stats
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/write-coalescing-stats")
+    public ResponseEntity<Map<String, Object>> getWriteCoalescingStats() {
+        return ResponseEntity.ok(cartWriteCoalescer.getStats());
+    }
+
+    /**
+     * Group-commit checkout batch counters (admin only).
+     * GET /api/cart/group-commit-stats
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/group-commit-stats")
+    public ResponseEntity<Map<String, Object>> getGroupCommitStats() {
+        return ResponseEntity.ok(checkoutBatchPipeline.getStats());
+    }
+
+    // ─── Guest carts (no login; held in memory, merged on login) ─────────
+
+    /**
+     * Retrieves a guest cart; an unknown or missing Guest-Cart-Id yields an empty cart.
+     * GET /api/cart/guest
+     */
+    @GetMapping("/guest")
+    public ResponseEntity<CartDto> getGuestCart(
+            @RequestHeader(value = GuestCartService.HEADER, required = false) String guestCartId) {
+        try {
+            return ResponseEntity.ok(guestCartService.getCart(parseGuestId(guestCartId)));
+        } catch (IllegalArgumentException ex) {
+            return guestCartError(ex);
+        }
+    }
+
+    /**
+     * Adds an item to a guest cart. Without a Guest-Cart-Id a new cart is started;
+     * its ID is returned in the Guest-Cart-Id response header.
+     * POST /api/cart/guest/add
+     */
+    @PostMapping("/guest/add")
+    public ResponseEntity<CartDto> addItemToGuestCart(
+            @Valid @RequestBody AddToCartRequest reqDto,
+            @RequestHeader(value = GuestCartService.HEADER, required = false) String guestCartId) {
+        try {
+            UUID guestId = parseGuestId(guestCartId);
+            if (guestId == null) {
+                guestId = UUID.randomUUID();
+            }
+            CartDto updated = guestCartService.addItem(guestId, reqDto);
+            return ResponseEntity.ok().header(GuestCartService.HEADER, guestId.toString()).body(updated);
+        } catch (IllegalArgumentException ex) {
+            return guestCartError(ex);
+        }
+    }
+
+    /**
+     * Updates the quantity of an item in a guest cart.
+     * PUT /api/cart/guest/item/{productId}?size=...
+     */
+    @PutMapping("/guest/item/{productId}")
+    public ResponseEntity<CartDto> updateGuestItemQuantity(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String size,
+            @Valid @RequestBody QuantityUpdateRequest reqDto,
+            @RequestHeader(value = GuestCartService.HEADER, required = false) String guestCartId) {
         try {
-            User currentUser = userService
-                    .findByMobileNumber(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found during checkout."));
+            return ResponseEntity.ok(guestCartService.updateItemQuantity(
+                    parseGuestId(guestCartId), productId, size, reqDto.getQuantity()));
+        } catch (IllegalArgumentException ex) {
+            return guestCartError(ex);
+        }
+    }
 
-            Order order = cartService.checkoutCart(currentUser, checkoutRequest);
-            logger.info("Checkout successful for user {}. Order ID: {}", currentUser.getMobileNumber(), order.getId());
+    /**
+     * Removes an item from a guest cart.
+     * DELETE /api/cart/guest/item/{productId}?size=...
+     */
+    @DeleteMapping("/guest/item/{productId}")
+    public ResponseEntity<CartDto> removeGuestItem(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String size,
+            @RequestHeader(value = GuestCartService.HEADER, required = false) String guestCartId) {
+        try {
+            return ResponseEntity.ok(guestCartService.removeItem(parseGuestId(guestCartId), productId, size));
+        } catch (IllegalArgumentException ex) {
+            return guestCartError(ex);
+        }
+    }
 
-            return ResponseEntity.ok(new CheckoutResponse(order.getId(), "Order placed successfully!", true));
+    /**
+     * Guest cart store size, limits and evictions (admin only).
+     * GET /api/cart/guest-stats
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/guest-stats")
+    public ResponseEntity<Map<String, Object>> getGuestCartStats() {
+        return ResponseEntity.ok(guestCartService.getStats());
+    }
 
+    private UUID parseGuestId(String guestCartId) {
+        if (guestCartId == null || guestCartId.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(guestCartId);
         } catch (IllegalArgumentException ex) {
-            logger.error("Checkout failed due to invalid request: {}", ex.getMessage());
-            return ResponseEntity
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body(new CheckoutResponse(null, ex.getMessage(), false));
-        } catch (Exception ex) {
-            logger.error("Server error during checkout: {}", ex.getMessage(), ex);
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new CheckoutResponse(null, "Server error during checkout", false));
+            throw new IllegalArgumentException("Invalid guest cart ID.");
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<CartDto> guestCartError(IllegalArgumentException ex) {
+        logger.debug("Guest cart request rejected: {}", ex.getMessage());
+        CartDto error = new CartDto(
+                null, Collections.emptyList(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0, null, ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    /**
+     * Checkout admission queue depth and wait times (admin only).
+     * GET /api/cart/checkout/admission-stats
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/checkout/admission-stats")
+    public ResponseEntity<Map<String, Object>> getCheckoutAdmissionStats() {
+        return ResponseEntity.ok(checkoutAdmissionService.getStats());
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.handPick.controller;
 
 import com.example.handPick.dto.OrderFeedbackDto;
+import com.example.handPick.dto.ReorderResponse;
 import com.example.handPick.model.Order;
+import com.example.handPick.model.User;
+import com.example.handPick.service.CartService;
 import com.example.handPick.service.OrderService;
+import com.example.handPick.service.UserService;
 import com.lowagie.text.Document;
 import com.lowagie.text.Paragraph;
 import com.lowagie.text.pdf.PdfWriter;
@@ -28,6 +32,12 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserService userService;
+
     // Test endpoint to demonstrate sorting features
     @GetMapping("/sort-examples")
     public ResponseEntity<java.util.Map<String, Object>> getSortExamples() {
@@ -274,6 +284,26 @@ public class OrderController {
         ).map(orderService::convertToDto);
     }
 
+    // Cursor-paged order history for the logged-in user, newest first; pass nextCursor back as cursor
+    @GetMapping("/cursor")
+    public com.example.handPick.dto.OrderSliceResponse getOrderHistoryByCursor(
+            @AuthenticationPrincipal org.springframework.security.core.userdetails.UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate
+    ) {
+        return orderService.getOrderSliceForUser(
+                userDetails.getUsername(),
+                status,
+                parseStartDate(startDate),
+                parseEndDate(endDate),
+                cursor,
+                size
+        );
+    }
+
     // Admin: Get all orders (paged)
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/admin")
@@ -285,6 +315,25 @@ public class OrderController {
         return orderService.getAllOrders(pageable).map(orderService::convertToDto);
     }
 
+    // Admin: cursor-paged orders, newest first, without the COUNT query of the offset endpoints
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/cursor")
+    public com.example.handPick.dto.OrderSliceResponse getAllOrdersForAdminByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate
+    ) {
+        return orderService.getOrderSliceForAdmin(
+                status,
+                parseStartDate(startDate),
+                parseEndDate(endDate),
+                cursor,
+                size
+        );
+    }
+
     // Admin: Enhanced order management with filtering, sorting, and date range
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/admin/filtered")
@@ -389,6 +438,27 @@ public class OrderController {
         }
     }
 
+    // Reorder: add a past order's lines to the active cart, reporting lines that could not be added
+    @PostMapping("/{orderId}/reorder")
+    public ResponseEntity<ReorderResponse> reorder(
+            @PathVariable Long orderId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userService.findByMobileNumber(userDetails.getUsername()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(cartService.reorder(user, orderId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(null);
+        }
+    }
+
     // Get a single order (detail view)
     @GetMapping("/{orderId}")
     public org.springframework.http.ResponseEntity<com.example.handPick.dto.OrderDto> getOrderDetail(
@@ -554,5 +624,20 @@ public class OrderController {
         com.example.handPick.model.Order updatedOrder = orderService.updateOrderStatus(orderId, statusUpdateDto.getStatus());
         return org.springframework.http.ResponseEntity.ok(orderService.convertToDto(updatedOrder));
     }
-    
-}
\ No newline at end of file
+
+    // yyyy-MM-dd query parameter as the start of that day, or null when absent
+    private static LocalDateTime parseStartDate(String startDate) {
+        if (startDate == null || startDate.trim().isEmpty()) {
+            return null;
+        }
+        return LocalDateTime.parse(startDate + "T00:00:00", DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    // yyyy-MM-dd query parameter as the end of that day, or null when absent
+    private static LocalDateTime parseEndDate(String endDate) {
+        if (endDate == null || endDate.trim().isEmpty()) {
+            return null;
+        }
+        return LocalDateTime.parse(endDate + "T23:59:59", DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.handPick.controller;
 
+import com.example.handPick.dto.HotStockModeRequest;
 import com.example.handPick.dto.ProductDto;
 import com.example.handPick.dto.ProductUpdateDto;
 import com.example.handPick.dto.ProductPageResponse;
+import com.example.handPick.dto.ProductSuggestionDto;
 import com.example.handPick.model.User;
 import com.example.handPick.service.ProductService;
 import com.example.handPick.service.UserService;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.List;
+import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -99,6 +102,51 @@ public class ProductController {
         }
     }
 
+    /**
+     * GET /api/v1/products/cursor?cursor={cursor}&size={size}
+     * Catalog pages in ID order for infinite scroll. Pass the response's nextCursor to get the next page;
+     * it is absent on the last page. No totals are returned, so no page needs a COUNT query.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ProductPageResponse> getProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        logger.info("Fetching products after cursor: '{}', size: {}", cursor, size);
+        return ResponseEntity.ok(productService.findProductsAfter(cursor, size));
+    }
+
+    /**
+     * GET /api/v1/products/suggest?prefix={prefix}&limit={limit}
+     * Autocomplete: product names and categories with a word starting with the prefix, best sellers first.
+     * Answered from memory, so it is cheap enough to call on every keystroke.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDto>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
+    }
+
+    /**
+     * GET /api/v1/products/search-stats
+     * Search index size and query counters (admin only).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/search-stats")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        return ResponseEntity.ok(productService.getSearchStats());
+    }
+
+    /**
+     * GET /api/v1/products/cache-stats
+     * Catalog cache sizes and hit/miss counters (admin only).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(productService.getCatalogCacheStats());
+    }
+
     /**
      * GET /api/v1/products/{id}
      * Retrieve a single product by its ID.
@@ -226,4 +274,30 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * PATCH /api/v1/products/{id}/hot-stock
+     * Switch a product in or out of sharded hot-stock mode (admin only).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("/{id}/hot-stock")
+    public ResponseEntity<ProductDto> setHotStockMode(
+            @PathVariable Long id,
+            @Valid @RequestBody HotStockModeRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            logger.warn("Unauthorized attempt to change hot-stock mode: No user details.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        logger.info("Setting hot-stock mode for product ID {} to {}", id, request.getEnabled());
+        try {
+            ProductDto updated = productService.setHotStockMode(id, request.getEnabled(), request.getShards());
+            return ResponseEntity.ok(updated);
+        } catch (RuntimeException e) {
+            logger.error("Failed to change hot-stock mode for product ID {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+}
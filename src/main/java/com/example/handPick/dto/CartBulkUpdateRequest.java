@@ -0,0 +1,20 @@
+package com.example.handPick.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBulkUpdateRequest {
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations are allowed per request")
+    @Valid
+    private List<CartItemOperation> operations;
+}
@@ -0,0 +1,29 @@
+package com.example.handPick.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemOperation {
+    @NotNull(message = "Operation is required")
+    private OperationType op;
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    // ADD: units to add (at least 1); SET: new line quantity (0 removes the line); REMOVE: ignored
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer quantity;
+
+    // Selected size/unit; for REMOVE, null removes every size of the product
+    private String size;
+
+    public enum OperationType {
+        ADD, SET, REMOVE
+    }
+}
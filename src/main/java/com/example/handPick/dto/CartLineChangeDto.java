@@ -0,0 +1,21 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineChangeDto {
+    private Long productId;
+    private String productName;
+    private String size;
+    private BigDecimal oldPrice;
+    private BigDecimal newPrice;
+    private Integer oldQuantity;
+    private Integer newQuantity; // 0 when the line was removed
+    private String reason; // PRICE_CHANGED, QUANTITY_REDUCED or OUT_OF_STOCK
+}
@@ -0,0 +1,16 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartRevalidationResponse {
+    private CartDto cart; // Cart after prices and quantities were brought up to date
+    private boolean changed;
+    private List<CartLineChangeDto> changes; // One entry per line whose price or quantity changed
+}
@@ -0,0 +1,14 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutQuoteRequest {
+    // Same address options as checkout; with neither set the default address is used
+    private Long selectedAddressId;
+    private AddressDto newAddress;
+}
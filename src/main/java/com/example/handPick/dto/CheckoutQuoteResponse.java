@@ -0,0 +1,18 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutQuoteResponse {
+    private String quoteToken; // Pass back as CheckoutRequest.quoteToken
+    private LocalDateTime expiresAt;
+    private Long cartRevision;
+    private CartDto cart; // Cart with current prices, as quoted
+    private AddressDto shippingAddress;
+}
@@ -22,4 +22,7 @@ public class CheckoutRequest {
     private String addressLabel; // Label for the new address (e.g., "Home", "Office")
     private String saveAddressAs; // "PERMANENT", "TEMPORARY", "ONE_TIME", or null for no saving
     private boolean setAsDefault = false; // Whether to set as default address
+
+    // Token from POST /api/cart/quote; while the cart is unchanged its totals and shipping address are used as quoted
+    private String quoteToken;
 }
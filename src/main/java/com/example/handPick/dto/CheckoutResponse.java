@@ -11,4 +11,9 @@ public class CheckoutResponse {
     private Long orderId;
     private String message;
     private boolean success;
+    private Integer queuePosition; // Set when checkout was rejected by the admission queue
+
+    public CheckoutResponse(Long orderId, String message, boolean success) {
+        this(orderId, message, success, null);
+    }
 }
\ No newline at end of file
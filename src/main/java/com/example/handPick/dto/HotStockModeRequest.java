@@ -0,0 +1,21 @@
+package com.example.handPick.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockModeRequest {
+    @NotNull(message = "Enabled flag is required")
+    private Boolean enabled;
+
+    // Number of stock shards when enabling; falls back to the configured default
+    @Min(value = 2, message = "At least 2 shards are required")
+    @Max(value = 64, message = "At most 64 shards are allowed")
+    private Integer shards;
+}
@@ -0,0 +1,16 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSliceResponse {
+    private List<OrderDto> orders; // Newest first
+    private int pageSize;
+    private String nextCursor; // Pass back as ?cursor= for the next page; null on the last page
+}
@@ -41,6 +41,8 @@ public class ProductDto {
 
     private Double rating; // Optional
 
+    private Boolean hotStock; // Read-only, true when stock is split across shard counters
+
     private BigDecimal oldPrice; // Optional
 
     private Double discountPercentage; // Optional, calculated by backend
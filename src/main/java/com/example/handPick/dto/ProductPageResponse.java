@@ -1,13 +1,18 @@
 package com.example.handPick.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+// Offset pages fill the totals and page number; cursor pages leave them out and set nextCursor instead
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProductPageResponse {
     private List<ProductDto> products;
-    private int totalPages;
-    private long totalElements;
-    private int currentPage;
+    private Integer totalPages;
+    private Long totalElements;
+    private Integer currentPage;
     private int pageSize;
+    private String nextCursor; // null on the last cursor page
 
     public ProductPageResponse() {}
 
@@ -19,6 +24,12 @@ public class ProductPageResponse {
         this.pageSize = pageSize;
     }
 
+    public ProductPageResponse(List<ProductDto> products, int pageSize, String nextCursor) {
+        this.products = products;
+        this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
+    }
+
     public List<ProductDto> getProducts() {
         return products;
     }
@@ -27,27 +38,27 @@ public class ProductPageResponse {
         this.products = products;
     }
 
-    public int getTotalPages() {
+    public Integer getTotalPages() {
         return totalPages;
     }
 
-    public void setTotalPages(int totalPages) {
+    public void setTotalPages(Integer totalPages) {
         this.totalPages = totalPages;
     }
 
-    public long getTotalElements() {
+    public Long getTotalElements() {
         return totalElements;
     }
 
-    public void setTotalElements(long totalElements) {
+    public void setTotalElements(Long totalElements) {
         this.totalElements = totalElements;
     }
 
-    public int getCurrentPage() {
+    public Integer getCurrentPage() {
         return currentPage;
     }
 
-    public void setCurrentPage(int currentPage) {
+    public void setCurrentPage(Integer currentPage) {
         this.currentPage = currentPage;
     }
 
@@ -58,4 +69,12 @@ public class ProductPageResponse {
     public void setPageSize(int pageSize) {
         this.pageSize = pageSize;
     }
-} 
\ No newline at end of file
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDto {
+    private String text; // Product name or category as stored
+    private String type; // PRODUCT or CATEGORY
+    private Long productId; // null for categories
+    private long unitsSold; // For a category, summed over its products
+}
@@ -0,0 +1,17 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderLineDto {
+    private Long productId;
+    private String productName;
+    private String size;
+    private Integer requestedQuantity;
+    private Integer addedQuantity; // Less than requested when stock ran short, 0 when nothing could be added
+    private String reason; // PRODUCT_UNAVAILABLE, OUT_OF_STOCK or PARTIAL_STOCK
+}
@@ -0,0 +1,17 @@
+package com.example.handPick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderResponse {
+    private CartDto cart; // Active cart after the reorder
+    private int requestedLines;
+    private int addedLines; // Lines added in full
+    private List<ReorderLineDto> unavailableLines; // Lines added only in part or not at all
+}
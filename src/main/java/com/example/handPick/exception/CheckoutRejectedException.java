@@ -0,0 +1,27 @@
+package com.example.handPick.exception;
+
+/**
+ * Thrown when the checkout admission queue cannot take a request right now.
+ * Carries the caller's position in the queue (0 if it never got one) and a suggested retry delay.
+ */
+public class CheckoutRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int queuePosition;
+    private final long retryAfterSeconds;
+
+    public CheckoutRejectedException(String message, int queuePosition, long retryAfterSeconds) {
+        super(message);
+        this.queuePosition = queuePosition;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
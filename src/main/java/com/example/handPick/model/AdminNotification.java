@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 public class AdminNotification {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "admin_notifications_gen")
+    @TableGenerator(name = "admin_notifications_gen", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "admin_notifications", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -12,7 +12,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = {
+        @Index(name = "idx_carts_status_updated_at", columnList = "status, updated_at"),
+        @Index(name = "idx_carts_status_subtotal", columnList = "status, subtotal")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,7 +28,7 @@ public class Cart {
     @JoinColumn(name = "user_id", unique = false)
     private User user;
 
-    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<CartItem> items = new ArrayList<>();
 
     @Enumerated(EnumType.STRING)
@@ -38,13 +41,44 @@ public class Cart {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Running totals kept in step with the items by every cart mutation, so reads need no per-item math.
+    // CartTotalsService periodically checks them against the items and repairs drift.
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount = 0;
+
+    @Column(name = "gst_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal gstAmount = BigDecimal.ZERO;
+
+    // Bumped on every write of the cart row; checkout quotes are only honoured for the revision they priced
+    @Column(nullable = false)
+    private Long revision = 0L;
+
     /**
-     * Calculates the total price of all items in the cart.
+     * Total price of all items in the cart (the stored running subtotal).
      * @return The sum of (item price * item quantity) for all cart items.
      */
     public BigDecimal getTotalPrice() {
+        return subtotal.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Total number of items (sum of quantities) in the cart (the stored running count).
+     * @return The sum of quantities for all cart items.
+     */
+    public Integer getTotalItems() {
+        return itemCount;
+    }
+
+    /**
+     * Recomputes the total price from the items.
+     * @return The sum of (item price * item quantity) for all cart items.
+     */
+    public BigDecimal computeTotalPrice() {
         if (items == null || items.isEmpty()) {
-            return BigDecimal.ZERO;
+            return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
         }
         return items.stream()
                 .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
@@ -53,10 +87,10 @@ public class Cart {
     }
 
     /**
-     * Calculates the total number of items (sum of quantities) in the cart.
+     * Recomputes the total number of items from the items.
      * @return The sum of quantities for all cart items.
      */
-    public Integer getTotalItems() {
+    public int computeTotalItems() {
         if (items == null || items.isEmpty()) {
             return 0;
         }
@@ -65,6 +99,39 @@ public class Cart {
                 .sum();
     }
 
+    /**
+     * Adds an item's current price and quantity to the running totals.
+     */
+    public void includeInTotals(CartItem item) {
+        subtotal = subtotal.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        itemCount += item.getQuantity();
+    }
+
+    /**
+     * Removes an item's current price and quantity from the running totals.
+     * Call before changing or removing the item.
+     */
+    public void excludeFromTotals(CartItem item) {
+        subtotal = subtotal.subtract(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        itemCount -= item.getQuantity();
+    }
+
+    /**
+     * Re-derives the GST amount from the running subtotal.
+     */
+    public void updateGstAmount(double gstRate) {
+        gstAmount = subtotal.multiply(BigDecimal.valueOf(gstRate)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Rebuilds all running totals from the items.
+     */
+    public void recalculateTotals(double gstRate) {
+        subtotal = computeTotalPrice();
+        itemCount = computeTotalItems();
+        updateGstAmount(gstRate);
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -74,6 +141,7 @@ public class Cart {
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        revision++;
     }
 
     public enum CartStatus {
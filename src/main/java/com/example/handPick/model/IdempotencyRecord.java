@@ -0,0 +1,63 @@
+package com.example.handPick.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored response of a request made with an Idempotency-Key header, replayed when the
+ * same user retries the same endpoint with the same key. The row is inserted IN_PROGRESS
+ * before the request runs, so the key is owned by one instance at a time.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "record_key", length = 255)
+    private String recordKey; // userId:endpoint:Idempotency-Key
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 50)
+    private String endpoint;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash; // SHA-256 of the request body
+
+    // Rows written before this column existed have no state and are complete
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private State state;
+
+    @Column(name = "status_code")
+    private Integer statusCode; // null while IN_PROGRESS
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody; // JSON
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public enum State {
+        IN_PROGRESS, COMPLETED
+    }
+
+    public boolean isInProgress() {
+        return state == State.IN_PROGRESS;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
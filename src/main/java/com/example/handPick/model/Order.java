@@ -11,13 +11,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date, id"),
+        @Index(name = "idx_orders_user_order_date_id", columnList = "user_id, order_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Table-backed pooled ids (not IDENTITY) so Hibernate can batch inserts; see create_id_generators_table.sql
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_gen")
+    @TableGenerator(name = "orders_gen", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
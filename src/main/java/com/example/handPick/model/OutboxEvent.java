@@ -0,0 +1,65 @@
+package com.example.handPick.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect (email, admin notification) recorded in the same transaction as the change that
+ * caused it, and delivered by the outbox dispatcher after commit.
+ */
+@Entity
+@Table(name = "outbox_events",
+        uniqueConstraints = @UniqueConstraint(name = "uk_outbox_events_type_aggregate", columnNames = {"event_type", "aggregate_id"}),
+        indexes = @Index(name = "idx_outbox_events_status_next_attempt", columnList = "status, next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType; // ORDER_PLACED, ORDER_CANCELLED
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId; // Order ID
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // JSON
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public enum OutboxStatus {
+        PENDING, SENT, FAILED
+    }
+}
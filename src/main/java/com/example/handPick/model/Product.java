@@ -41,6 +41,10 @@ public class Product {
     @Column(nullable = false)
     private Integer stockQuantity;
 
+    // When true, stock lives in product_stock_shards and stockQuantity is kept at 0
+    @Column(name = "hot_stock_enabled", nullable = false)
+    private Boolean hotStock = false;
+
     @Column
     private Double rating;
 
@@ -0,0 +1,35 @@
+package com.example.handPick.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-product projection of the quantity currently held in ACTIVE carts.
+ * Maintained incrementally by cart mutations so available stock is a single-row read.
+ */
+@Entity
+@Table(name = "product_reservations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductReservation {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "reserved_quantity", nullable = false)
+    private Integer reservedQuantity = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
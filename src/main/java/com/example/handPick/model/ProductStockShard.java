@@ -0,0 +1,38 @@
+package com.example.handPick.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * One sub-counter of a hot product's stock. While a product is in hot-stock mode its
+ * stock is the sum of its shards, so concurrent checkouts update different rows.
+ */
+@Entity
+@Table(name = "product_stock_shards",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_shard", columnNames = {"product_id", "shard_index"}),
+        indexes = @Index(name = "idx_product_stock_shards_product", columnList = "product_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public ProductStockShard(Long productId, Integer shardIndex, Integer quantity) {
+        this.productId = productId;
+        this.shardIndex = shardIndex;
+        this.quantity = quantity;
+    }
+}
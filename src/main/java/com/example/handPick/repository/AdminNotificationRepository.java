@@ -25,4 +25,7 @@ public interface AdminNotificationRepository extends JpaRepository<AdminNotifica
     
     // Find notifications for specific order
     List<AdminNotification> findByOrderIdOrderByCreatedAtDesc(Long orderId);
+    
+    // Check whether a notification of this type already exists for an order
+    boolean existsByOrderIdAndType(Long orderId, String type);
 } 
\ No newline at end of file
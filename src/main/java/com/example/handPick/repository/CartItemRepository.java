@@ -3,9 +3,28 @@ package com.example.handPick.repository;
 import com.example.handPick.model.CartItem;
 import com.example.handPick.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartAndProductId(Cart cart, Long productId);
-}
\ No newline at end of file
+
+    // Total quantity per product across carts in the given status: rows of [productId, sum]
+    @Query("SELECT ci.product.id, SUM(ci.quantity) FROM CartItem ci WHERE ci.cart.status = :status GROUP BY ci.product.id")
+    List<Object[]> sumQuantityByProductForCartStatus(@Param("status") Cart.CartStatus status);
+
+    // Total quantity per user and product across carts in the given status: rows of [userId, productId, sum]
+    @Query("SELECT ci.cart.user.id, ci.product.id, SUM(ci.quantity) FROM CartItem ci WHERE ci.cart.status = :status GROUP BY ci.cart.user.id, ci.product.id")
+    List<Object[]> sumQuantityByUserAndProductForCartStatus(@Param("status") Cart.CartStatus status);
+
+    // Total quantity of one product across carts in the given status
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.product.id = :productId AND ci.cart.status = :status")
+    long sumQuantityForProductAndCartStatus(@Param("productId") Long productId, @Param("status") Cart.CartStatus status);
+
+    // Total quantity across a user's carts in the given status (the cart badge count)
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.cart.user.id = :userId AND ci.cart.status = :status")
+    long sumQuantityForUserAndCartStatus(@Param("userId") Long userId, @Param("status") Cart.CartStatus status);
+}
@@ -2,11 +2,72 @@ package com.example.handPick.repository;
 
 import com.example.handPick.model.Cart;
 import com.example.handPick.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
+    // Cart header only; items stay lazy
     Optional<Cart> findByUserAndStatus(User user, Cart.CartStatus status);
+
+    // Cart with its items and their products in one query, for anything that reads or changes lines
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    Optional<Cart> findWithItemsByUserAndStatus(User user, Cart.CartStatus status);
+    // Checkout read model: the active cart with its user, items and products, and the user's default
+    // address (null if none), in one statement; one row per item, the cart and address repeated on each
+    @Query("SELECT c, a FROM Cart c JOIN FETCH c.user u LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product " +
+            "LEFT JOIN UserAddress a ON a.user = u AND a.isDefault = true " +
+            "WHERE u.id = :userId AND c.status = :status")
+    List<Object[]> findCheckoutRows(@Param("userId") Long userId, @Param("status") Cart.CartStatus status);
     // You might also need:
     // Optional<Cart> findByUser(User user);
-}
\ No newline at end of file
+
+    // IDs of carts in a status that have not been touched since the cutoff, least recently updated first;
+    // ordering by updatedAt lets idx_carts_status_updated_at serve both the filter and the sort
+    @Query("SELECT c.id FROM Cart c WHERE c.status = :status AND c.updatedAt < :cutoff ORDER BY c.updatedAt, c.id")
+    List<Long> findIdsByStatusAndUpdatedAtBefore(@Param("status") Cart.CartStatus status,
+                                                 @Param("cutoff") LocalDateTime cutoff,
+                                                 Pageable pageable);
+
+    // Lock a batch of carts, re-checking the idle condition so carts touched in the meantime are skipped
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "items")
+    @Query("SELECT c FROM Cart c WHERE c.id IN :ids AND c.status = :status AND c.updatedAt < :cutoff")
+    List<Cart> findIdleForUpdate(@Param("ids") Collection<Long> ids,
+                                 @Param("status") Cart.CartStatus status,
+                                 @Param("cutoff") LocalDateTime cutoff);
+
+    // IDs of carts in a status that no longer hold any items
+    @Query("SELECT c.id FROM Cart c WHERE c.status = :status AND c.items IS EMPTY ORDER BY c.id")
+    List<Long> findEmptyCartIdsByStatus(@Param("status") Cart.CartStatus status, Pageable pageable);
+
+    // IDs of carts whose stored totals disagree with their items, walking forward from afterId
+    @Query("SELECT c.id FROM Cart c WHERE c.status = :status AND c.id > :afterId AND (" +
+            "c.itemCount <> (SELECT COALESCE(SUM(i.quantity), 0) FROM CartItem i WHERE i.cart = c) OR " +
+            "c.subtotal <> (SELECT COALESCE(SUM(i.price * i.quantity), 0) FROM CartItem i WHERE i.cart = c)) " +
+            "ORDER BY c.id")
+    List<Long> findIdsWithStaleTotals(@Param("status") Cart.CartStatus status,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+
+    // Lock carts with their items in ID order, for repairs that rewrite the stored totals
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "items")
+    @Query("SELECT c FROM Cart c WHERE c.id IN :ids ORDER BY c.id")
+    List<Cart> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Carts in a status at or above a subtotal, largest first; served by idx_carts_status_subtotal
+    List<Cart> findByStatusAndSubtotalGreaterThanEqualOrderBySubtotalDesc(Cart.CartStatus status,
+                                                                         BigDecimal minSubtotal,
+                                                                         Pageable pageable);
+}
@@ -0,0 +1,48 @@
+package com.example.handPick.repository;
+
+import com.example.handPick.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Stored response for a key, ignoring records past their expiry
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.recordKey = :recordKey AND r.expiresAt > :now")
+    Optional<IdempotencyRecord> findValid(@Param("recordKey") String recordKey, @Param("now") LocalDateTime now);
+
+    // Claims a key before its request runs; fails with a duplicate-key error if the key has a row already
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (record_key, user_id, endpoint, request_hash, state, created_at, expires_at) " +
+            "VALUES (:recordKey, :userId, :endpoint, :requestHash, 'IN_PROGRESS', :now, :expiresAt)",
+            nativeQuery = true)
+    int insertInProgress(@Param("recordKey") String recordKey, @Param("userId") Long userId,
+                         @Param("endpoint") String endpoint, @Param("requestHash") String requestHash,
+                         @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Stores the response of a claimed key; 0 if the claim has been lost
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.state = :completed, r.statusCode = :statusCode, " +
+            "r.responseBody = :responseBody, r.expiresAt = :expiresAt " +
+            "WHERE r.recordKey = :recordKey AND r.state = :inProgress")
+    int complete(@Param("recordKey") String recordKey, @Param("statusCode") int statusCode,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("inProgress") IdempotencyRecord.State inProgress,
+                 @Param("completed") IdempotencyRecord.State completed);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.recordKey = :recordKey AND r.state = :state")
+    int deleteByRecordKeyAndState(@Param("recordKey") String recordKey, @Param("state") IdempotencyRecord.State state);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.recordKey = :recordKey AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("recordKey") String recordKey, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,8 +1,18 @@
 package com.example.handPick.repository;
 
+import com.example.handPick.model.Order;
 import com.example.handPick.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     // Basic CRUD provided by JpaRepository
-}
\ No newline at end of file
+
+    // Units sold per product, ignoring orders in the given status: rows of [productId, units]
+    @Query("SELECT oi.productId, SUM(oi.quantity) FROM OrderItem oi " +
+            "WHERE oi.order.status <> :excludedStatus GROUP BY oi.productId")
+    List<Object[]> sumQuantityByProductExcludingStatus(@Param("excludedStatus") Order.OrderStatus excludedStatus);
+}
@@ -4,12 +4,14 @@ import com.example.handPick.model.Order;
 import com.example.handPick.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -56,6 +58,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                                @Param("endDate") LocalDateTime endDate, 
                                                Pageable pageable);
     
+    // Keyset page of a user's orders placed before a position, newest first; a Slice, so no COUNT query is run
+    @Query("SELECT o FROM Order o WHERE o.user = :user AND o.status IN :statuses " +
+           "AND o.orderDate >= :startDate AND o.orderDate <= :endDate " +
+           "AND (o.orderDate < :beforeDate OR (o.orderDate = :beforeDate AND o.id < :beforeId)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<Order> findSliceByUserBefore(@Param("user") User user,
+                                       @Param("statuses") Collection<Order.OrderStatus> statuses,
+                                       @Param("startDate") LocalDateTime startDate,
+                                       @Param("endDate") LocalDateTime endDate,
+                                       @Param("beforeDate") LocalDateTime beforeDate,
+                                       @Param("beforeId") Long beforeId,
+                                       Pageable pageable);
+
+    // Admin: keyset page of all orders placed before a position, newest first; a Slice, so no COUNT query is run
+    @Query("SELECT o FROM Order o WHERE o.status IN :statuses " +
+           "AND o.orderDate >= :startDate AND o.orderDate <= :endDate " +
+           "AND (o.orderDate < :beforeDate OR (o.orderDate = :beforeDate AND o.id < :beforeId)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<Order> findSliceBefore(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                 @Param("startDate") LocalDateTime startDate,
+                                 @Param("endDate") LocalDateTime endDate,
+                                 @Param("beforeDate") LocalDateTime beforeDate,
+                                 @Param("beforeId") Long beforeId,
+                                 Pageable pageable);
+
     // Calculate monthly revenue from delivered orders
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status = 'DELIVERED' AND o.orderDate >= :startDate AND o.orderDate < :endDate")
     BigDecimal calculateMonthlyRevenue(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
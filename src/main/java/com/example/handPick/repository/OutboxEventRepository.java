@@ -0,0 +1,31 @@
+package com.example.handPick.repository;
+
+import com.example.handPick.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // IDs of events due for (re)delivery, oldest first
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("status") OutboxEvent.OutboxStatus status,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    // Claim a due event by pushing its next attempt past a lease; returns 0 if another worker got it first
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.nextAttemptAt = :leaseUntil " +
+            "WHERE e.id = :id AND e.status = :status AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id,
+              @Param("status") OutboxEvent.OutboxStatus status,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByStatus(OutboxEvent.OutboxStatus status);
+}
@@ -1,13 +1,19 @@
 package com.example.handPick.repository;
 
 import com.example.handPick.model.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -23,4 +29,46 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Simpler search method for debugging
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<Product> searchByNameOrDescription(@Param("searchTerm") String searchTerm, Pageable pageable);
-}
\ No newline at end of file
+
+    // Searchable text of products after an ID, in ID order, for loading the search index: rows of [id, name, category, description]
+    @Query("SELECT p.id, p.name, p.category, p.description FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Keyset page of products after an ID, in ID order; a Slice, so no COUNT query is run
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    Slice<Product> findSliceAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Name and category of products after an ID, in ID order, for loading the suggestion index: rows of [id, name, category]
+    @Query("SELECT p.id, p.name, p.category FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findNameAndCategoryAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Stock level of every product, summing shards for hot products: rows of [id, stock]
+    @Query("SELECT p.id, CASE WHEN p.hotStock = true " +
+            "THEN (SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockShard s WHERE s.productId = p.id) " +
+            "ELSE p.stockQuantity END FROM Product p")
+    List<Object[]> findAllStockQuantities();
+
+    // Lock a product row while its stock mode is switched
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // Lock several product rows in ascending ID order (same order as checkout's stock updates)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Current stock straight from the database, bypassing any entity already loaded in the session
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockQuantityById(@Param("id") Long id);
+
+    // Guarded decrement: only updates the row while enough stock remains, returns 0 otherwise
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = :now WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    // Atomic increment, used when stock is returned (e.g. order cancellation)
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.updatedAt = :now WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+}
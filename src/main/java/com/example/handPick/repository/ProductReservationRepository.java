@@ -0,0 +1,33 @@
+package com.example.handPick.repository;
+
+import com.example.handPick.model.ProductReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductReservationRepository extends JpaRepository<ProductReservation, Long> {
+
+    // Current reserved quantity for a product (single primary-key lookup)
+    @Query("SELECT r.reservedQuantity FROM ProductReservation r WHERE r.productId = :productId")
+    Optional<Integer> findReservedQuantity(@Param("productId") Long productId);
+
+    // Apply a signed delta, creating the row on first use
+    @Modifying
+    @Query(value = "INSERT INTO product_reservations (product_id, reserved_quantity, updated_at) " +
+            "VALUES (:productId, GREATEST(:delta, 0), NOW()) " +
+            "ON DUPLICATE KEY UPDATE reserved_quantity = GREATEST(reserved_quantity + :delta, 0), updated_at = NOW()",
+            nativeQuery = true)
+    int adjustReservedQuantity(@Param("productId") Long productId, @Param("delta") int delta);
+
+    // Lock a ledger row while it is being repaired by reconciliation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ProductReservation r WHERE r.productId = :productId")
+    Optional<ProductReservation> findForUpdate(@Param("productId") Long productId);
+}
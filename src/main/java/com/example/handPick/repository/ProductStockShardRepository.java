@@ -0,0 +1,57 @@
+package com.example.handPick.repository;
+
+import com.example.handPick.model.ProductStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    // Shard indexes of a product, used to pick a random starting shard
+    @Query("SELECT s.shardIndex FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<Integer> findShardIndexes(@Param("productId") Long productId);
+
+    // Unlocked snapshot of each shard's quantity, used to pick a shard that can cover a decrement
+    @Query("SELECT s.shardIndex, s.quantity FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<Object[]> findShardQuantities(@Param("productId") Long productId);
+
+    // Lock the shards of a product from a shard index upward, in index order (spanning decrements)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = :productId AND s.shardIndex >= :fromIndex ORDER BY s.shardIndex")
+    List<ProductStockShard> findForUpdateFrom(@Param("productId") Long productId, @Param("fromIndex") int fromIndex);
+
+    // Lock every shard of a product in index order (rebalancing)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<ProductStockShard> findForUpdate(@Param("productId") Long productId);
+
+    // Summed stock of one product
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockShard s WHERE s.productId = :productId")
+    long sumQuantity(@Param("productId") Long productId);
+
+    // Summed stock per product: rows of [productId, sum]
+    @Query("SELECT s.productId, SUM(s.quantity) FROM ProductStockShard s WHERE s.productId IN :productIds GROUP BY s.productId")
+    List<Object[]> sumQuantityByProduct(@Param("productIds") Collection<Long> productIds);
+
+    // Guarded decrement of a single shard
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity - :quantity WHERE s.productId = :productId AND s.shardIndex = :shardIndex AND s.quantity >= :quantity")
+    int decrementShard(@Param("productId") Long productId, @Param("shardIndex") int shardIndex, @Param("quantity") int quantity);
+
+    // Unconditional increment of a single shard
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity + :quantity WHERE s.productId = :productId AND s.shardIndex = :shardIndex")
+    int incrementShard(@Param("productId") Long productId, @Param("shardIndex") int shardIndex, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
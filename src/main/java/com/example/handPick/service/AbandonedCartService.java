@@ -0,0 +1,139 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Cart;
+import com.example.handPick.model.CartItem;
+import com.example.handPick.repository.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Background clean-up of carts. ACTIVE carts idle past the configured window are marked ABANDONED
+ * and their reserved stock is released; empty ORDERED carts left behind by checkout are deleted.
+ * Work is done in bounded batches, each in its own short transaction.
+ */
+@Service
+public class AbandonedCartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartService.class);
+
+    private final CartRepository cartRepository;
+    private final StockReservationService stockReservationService;
+    private final StockReservationEngine stockReservationEngine;
+    private final CartCountService cartCountService;
+    private final TransactionTemplate batchTransaction;
+
+    @Value("${app.cart.abandon.idle-hours:72}")
+    private long idleHours;
+
+    @Value("${app.cart.abandon.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.cart.abandon.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Autowired
+    public AbandonedCartService(CartRepository cartRepository,
+                                StockReservationService stockReservationService,
+                                StockReservationEngine stockReservationEngine,
+                                CartCountService cartCountService,
+                                PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.stockReservationService = stockReservationService;
+        this.stockReservationEngine = stockReservationEngine;
+        this.cartCountService = cartCountService;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Scheduled entry point: abandons idle carts, then purges empty ordered carts.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.abandon.interval-ms:900000}",
+            initialDelayString = "${app.cart.abandon.initial-delay-ms:120000}")
+    public void reapCarts() {
+        int abandoned = abandonIdleCarts();
+        int deleted = deleteEmptyOrderedCarts();
+        if (abandoned > 0 || deleted > 0) {
+            logger.info("Cart reaper abandoned {} idle cart(s) and deleted {} empty ordered cart(s)", abandoned, deleted);
+        }
+    }
+
+    /**
+     * Marks ACTIVE carts not updated within the idle window as ABANDONED and releases their reservations.
+     * @return The number of carts abandoned.
+     */
+    public int abandonIdleCarts() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(idleHours);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = cartRepository.findIdsByStatusAndUpdatedAtBefore(
+                    Cart.CartStatus.ACTIVE, cutoff, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer abandoned = batchTransaction.execute(status -> abandonBatch(ids, cutoff));
+            total += abandoned != null ? abandoned : 0;
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Deletes ORDERED carts whose items were all moved into an order.
+     * @return The number of carts deleted.
+     */
+    public int deleteEmptyOrderedCarts() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = cartRepository.findEmptyCartIdsByStatus(
+                    Cart.CartStatus.ORDERED, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            batchTransaction.executeWithoutResult(status -> cartRepository.deleteAllByIdInBatch(ids));
+            total += ids.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int abandonBatch(List<Long> ids, LocalDateTime cutoff) {
+        List<Cart> carts = cartRepository.findIdleForUpdate(ids, Cart.CartStatus.ACTIVE, cutoff);
+
+        // Release per product in ascending ID order, matching the lock order used by checkout
+        Map<Long, Integer> released = new TreeMap<>();
+        for (Cart cart : carts) {
+            for (CartItem item : cart.getItems()) {
+                Long productId = item.getProduct().getId();
+                released.merge(productId, item.getQuantity(), Integer::sum);
+                if (stockReservationEngine.isEnabled() && cart.getUser() != null) {
+                    stockReservationEngine.releaseHold(cart.getUser().getId(), productId);
+                }
+            }
+            cart.setStatus(Cart.CartStatus.ABANDONED);
+            if (cart.getUser() != null) {
+                cartCountService.evictAfterCommit(cart.getUser().getId());
+            }
+        }
+        cartRepository.saveAll(carts);
+        released.forEach((productId, quantity) -> stockReservationService.release(productId, quantity));
+        return carts.size();
+    }
+}
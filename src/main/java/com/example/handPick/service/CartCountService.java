@@ -0,0 +1,80 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Cart;
+import com.example.handPick.repository.CartItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Item count of each user's active cart for the header badge. Served from a per-user cache;
+ * misses run a single SUM query. Cart mutations update the cached value once they commit.
+ */
+@Service
+public class CartCountService {
+
+    private final CartItemRepository cartItemRepository;
+
+    @Value("${app.cart.count-cache.size:50000}")
+    private int cacheSize;
+
+    @Value("${app.cart.count-cache.ttl-ms:600000}")
+    private long cacheTtlMs;
+
+    private BoundedTtlCache<Long, Integer> counts;
+
+    @Autowired
+    public CartCountService(CartItemRepository cartItemRepository) {
+        this.cartItemRepository = cartItemRepository;
+    }
+
+    @PostConstruct
+    void initCache() {
+        counts = new BoundedTtlCache<>(cacheSize, cacheTtlMs);
+    }
+
+    /**
+     * Total quantity in the user's active cart; 0 if there is no active cart. Never writes.
+     */
+    @Transactional(readOnly = true)
+    public int getItemCount(Long userId) {
+        Integer cached = counts.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        int count = (int) cartItemRepository.sumQuantityForUserAndCartStatus(userId, Cart.CartStatus.ACTIVE);
+        counts.put(userId, count);
+        return count;
+    }
+
+    /**
+     * Records the user's new item count once the current transaction commits.
+     */
+    public void updateAfterCommit(Long userId, int count) {
+        afterCommit(() -> counts.put(userId, count));
+    }
+
+    /**
+     * Drops the user's cached count once the current transaction commits.
+     */
+    public void evictAfterCommit(Long userId) {
+        afterCommit(() -> counts.remove(userId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.handPick.service;
 
 import com.example.handPick.dto.AddToCartRequest;
+import com.example.handPick.dto.AddressDto;
 import com.example.handPick.dto.CartDto;
 import com.example.handPick.dto.CartItemDto;
+import com.example.handPick.dto.CartItemOperation;
+import com.example.handPick.dto.CartLineChangeDto;
+import com.example.handPick.dto.CartRevalidationResponse;
+import com.example.handPick.dto.CheckoutQuoteRequest;
+import com.example.handPick.dto.CheckoutQuoteResponse;
 import com.example.handPick.dto.CheckoutRequest;
+import com.example.handPick.dto.ReorderLineDto;
+import com.example.handPick.dto.ReorderResponse;
 import com.example.handPick.model.Cart;
 import com.example.handPick.model.CartItem;
 import com.example.handPick.model.Order;
@@ -11,6 +19,7 @@ import com.example.handPick.model.OrderItem;
 import com.example.handPick.model.Product;
 import com.example.handPick.model.User;
 import com.example.handPick.model.ShippingAddress;
+import com.example.handPick.model.UserAddress;
 import com.example.handPick.repository.CartItemRepository;
 import com.example.handPick.repository.CartRepository;
 import com.example.handPick.repository.OrderItemRepository;
@@ -22,10 +31,21 @@ import org.springframework.beans.factory.annotation.Value;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -44,6 +64,13 @@ public class CartService {
     private final UserService userService;
     private final UserAddressService userAddressService;
     private final NotificationService notificationService;
+    private final StockReservationService stockReservationService;
+    private final StockReservationEngine stockReservationEngine;
+    private final CartCountService cartCountService;
+    private final GuestCartService guestCartService;
+    private final CartWriteCoalescer cartWriteCoalescer;
+    private final CheckoutQuoteService checkoutQuoteService;
+    private final CheckoutSnapshotLoader checkoutSnapshotLoader;
 
     @Value("${app.gst.rate:0.18}")
     private double gstRate;
@@ -56,7 +83,14 @@ public class CartService {
                        ProductService productService,
                        UserService userService,
                        UserAddressService userAddressService,
-                       NotificationService notificationService) {
+                       NotificationService notificationService,
+                       StockReservationService stockReservationService,
+                       StockReservationEngine stockReservationEngine,
+                       CartCountService cartCountService,
+                       GuestCartService guestCartService,
+                       CartWriteCoalescer cartWriteCoalescer,
+                       CheckoutQuoteService checkoutQuoteService,
+                       CheckoutSnapshotLoader checkoutSnapshotLoader) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.orderRepository = orderRepository;
@@ -65,6 +99,13 @@ public class CartService {
         this.userService = userService;
         this.userAddressService = userAddressService;
         this.notificationService = notificationService;
+        this.stockReservationService = stockReservationService;
+        this.stockReservationEngine = stockReservationEngine;
+        this.cartCountService = cartCountService;
+        this.guestCartService = guestCartService;
+        this.cartWriteCoalescer = cartWriteCoalescer;
+        this.checkoutQuoteService = checkoutQuoteService;
+        this.checkoutSnapshotLoader = checkoutSnapshotLoader;
     }
 
     /**
@@ -91,8 +132,9 @@ public class CartService {
         if (request.getProductId() == null || request.getQuantity() <= 0) {
             throw new IllegalArgumentException("Invalid product ID or quantity.");
         }
+        applyPendingQuantities(user);
 
-        Cart cart = cartRepository.findByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+        Cart cart = cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
                 .orElseGet(() -> createNewCartForUser(user));
         Product product = productService.getProductEntityById(request.getProductId())
                 .orElseThrow(() -> new IllegalArgumentException(
@@ -109,37 +151,37 @@ public class CartService {
         int newTotal = currentQty + addQty;
 
         // Check for sufficient stock before adding
-        int availableStock = getAvailableStock(product);
         int totalInCart = cart.getItems().stream()
                 .filter(i -> i.getProduct().getId().equals(product.getId()))
                 .mapToInt(CartItem::getQuantity)
                 .sum();
-        
         int totalRequested = totalInCart + addQty;
-        
-        if (availableStock < totalRequested) {
-            throw new IllegalArgumentException(
-                    "Insufficient stock. Available: " + availableStock + 
-                    ", requested: " + totalRequested + 
-                    " (already in cart: " + totalInCart + ")");
-        }
+        reserveStock(user, product, totalInCart, totalRequested, "already in cart: " + totalInCart);
 
         if (existing.isPresent()) {
             // Update quantity of existing item
             CartItem item = existing.get();
+            cart.excludeFromTotals(item);
             item.setQuantity(newTotal);
             item.setPrice(product.getPrice());
+            cart.includeInTotals(item);
             cartItemRepository.save(item);
         } else {
             // Add new item to cart
             CartItem item = new CartItem(product, addQty, cart, request.getSize());
             cart.getItems().add(item);
+            cart.includeInTotals(item);
             cartItemRepository.save(item);
         }
+        cart.updateGstAmount(gstRate);
 
         // DO NOT deduct stock here - stock is only deducted during checkout
+        stockReservationService.adjust(product.getId(), addQty);
 
+        // Item changes alone do not dirty the cart row, so bump its activity time explicitly
+        cart.setUpdatedAt(LocalDateTime.now());
         cartRepository.save(cart);
+        cartCountService.updateAfterCommit(user.getId(), cart.getTotalItems());
         return convertToDto(cart);
     }
 
@@ -153,7 +195,8 @@ public class CartService {
         if (user == null || user.getId() == null) {
             throw new IllegalArgumentException("User must be logged in to update the cart.");
         }
-        Cart cart = cartRepository.findByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+        applyPendingQuantities(user);
+        Cart cart = cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
                 .orElseThrow(() -> new IllegalArgumentException("Active cart not found for user."));
         CartItem item = cart.getItems().stream()
                 .filter(i -> i.getProduct().getId().equals(productId))
@@ -168,53 +211,36 @@ public class CartService {
         if (quantity <= 0) {
             cart.getItems().remove(item);
             cartItemRepository.delete(item);
+            cart.excludeFromTotals(item);
             // DO NOT add stock back here - stock is only managed during checkout
+            stockReservationService.release(productId, oldQty);
+            releaseEngineHold(user, cart, productId);
         } else {
             // Check if new quantity exceeds available stock
-            int availableStock = getAvailableStock(product);
             int totalInCart = cart.getItems().stream()
                     .filter(i -> i.getProduct().getId().equals(productId))
                     .mapToInt(CartItem::getQuantity)
                     .sum();
-            
             int otherItemsInCart = totalInCart - oldQty; // Items of same product in cart, excluding current item
             int totalRequested = otherItemsInCart + quantity;
+            reserveStock(user, product, totalInCart, totalRequested, "other items in cart: " + otherItemsInCart);
             
-            if (availableStock < totalRequested) {
-                throw new IllegalArgumentException(
-                        "Insufficient stock. Available: " + availableStock + 
-                        ", requested: " + totalRequested + 
-                        " (other items in cart: " + otherItemsInCart + ")");
-            }
-            
+            cart.excludeFromTotals(item);
             item.setQuantity(quantity);
             item.setPrice(product.getPrice());
+            cart.includeInTotals(item);
             cartItemRepository.save(item);
             // DO NOT deduct stock here - stock is only deducted during checkout
+            stockReservationService.adjust(productId, diff);
         }
+        cart.updateGstAmount(gstRate);
 
+        cart.setUpdatedAt(LocalDateTime.now());
         cartRepository.save(cart);
+        cartCountService.updateAfterCommit(user.getId(), cart.getTotalItems());
         return convertToDto(cart);
     }
 
-    /**
-     * Calculates available stock for a product considering items in active carts
-     */
-    private int getAvailableStock(Product product) {
-        if (product.getStockQuantity() == null) {
-            return 0;
-        }
-        
-        // Get total quantity of this product in all active carts
-        int totalInCarts = cartItemRepository.findAll().stream()
-                .filter(item -> item.getProduct().getId().equals(product.getId()))
-                .filter(item -> item.getCart().getStatus() == Cart.CartStatus.ACTIVE)
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-        
-        return product.getStockQuantity() - totalInCarts;
-    }
-
     /**
      * Removes a specific item from the cart.
      */
@@ -223,7 +249,8 @@ public class CartService {
         if (user == null || user.getId() == null) {
             throw new IllegalArgumentException("User must be logged in to update the cart.");
         }
-        Cart cart = cartRepository.findByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+        applyPendingQuantities(user);
+        Cart cart = cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
                 .orElseThrow(() -> new IllegalArgumentException("Active cart not found for user."));
         CartItem item = cart.getItems().stream()
                 .filter(i -> i.getProduct().getId().equals(productId))
@@ -231,18 +258,357 @@ public class CartService {
                 .orElseThrow(() ->
                         new IllegalArgumentException("Product not in cart: " + productId));
 
-        Product product = item.getProduct();
         cart.getItems().remove(item);
         cartItemRepository.delete(item);
+        cart.excludeFromTotals(item);
+        cart.updateGstAmount(gstRate);
 
         // DO NOT add stock back here - stock is only managed during checkout
+        stockReservationService.release(productId, item.getQuantity());
+        releaseEngineHold(user, cart, productId);
 
+        cart.setUpdatedAt(LocalDateTime.now());
         cartRepository.save(cart);
+        cartCountService.updateAfterCommit(user.getId(), cart.getTotalItems());
         return convertToDto(cart);
     }
 
+    /**
+     * Applies a list of add / set / remove operations to the cart in one transaction.
+     * Operations run in order against the in-memory lines; stock is then checked once per product
+     * against the resulting total, and the reservation ledger is adjusted by the net change.
+     */
+    @Transactional
+    public CartDto applyItemOperations(User user, List<CartItemOperation> operations) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User must be logged in to update the cart.");
+        }
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No cart operations provided.");
+        }
+        applyPendingQuantities(user);
+
+        Cart cart = cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+                .orElseGet(() -> createNewCartForUser(user));
+        Map<Long, Integer> before = quantitiesByProduct(cart);
+
+        Set<Long> productIds = operations.stream()
+                .map(CartItemOperation::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productService.getProductEntitiesByIds(productIds);
+
+        for (CartItemOperation operation : operations) {
+            Long productId = operation.getProductId();
+            int quantity = operation.getQuantity() != null ? operation.getQuantity() : 0;
+            Optional<CartItem> line = cart.getItems().stream()
+                    .filter(i -> i.getProduct().getId().equals(productId) &&
+                            Objects.equals(operation.getSize(), i.getSize()))
+                    .findFirst();
+
+            switch (operation.getOp()) {
+                case ADD, SET -> {
+                    Product product = products.get(productId);
+                    if (product == null) {
+                        throw new IllegalArgumentException("Product not found: " + productId);
+                    }
+                    if (operation.getOp() == CartItemOperation.OperationType.ADD && quantity <= 0) {
+                        throw new IllegalArgumentException("Invalid quantity for product: " + productId);
+                    }
+                    int newQty = operation.getOp() == CartItemOperation.OperationType.ADD
+                            ? line.map(CartItem::getQuantity).orElse(0) + quantity
+                            : quantity;
+                    line.ifPresent(cart::excludeFromTotals);
+                    if (newQty <= 0) {
+                        line.ifPresent(cart.getItems()::remove);
+                    } else if (line.isPresent()) {
+                        line.get().setQuantity(newQty);
+                        line.get().setPrice(product.getPrice());
+                        cart.includeInTotals(line.get());
+                    } else {
+                        CartItem item = new CartItem(product, newQty, cart, operation.getSize());
+                        cart.getItems().add(item);
+                        cart.includeInTotals(item);
+                    }
+                }
+                case REMOVE -> cart.getItems().removeIf(i -> {
+                    boolean matches = i.getProduct().getId().equals(productId) &&
+                            (operation.getSize() == null || operation.getSize().equals(i.getSize()));
+                    if (matches) {
+                        cart.excludeFromTotals(i);
+                    }
+                    return matches;
+                });
+            }
+        }
+        cart.updateGstAmount(gstRate);
+
+        // One stock check and one ledger adjustment per product, in ascending ID order
+        Map<Long, Integer> after = quantitiesByProduct(cart);
+        Set<Long> touched = new TreeSet<>(before.keySet());
+        touched.addAll(after.keySet());
+        for (Long productId : touched) {
+            int oldQty = before.getOrDefault(productId, 0);
+            int newQty = after.getOrDefault(productId, 0);
+            if (newQty > oldQty) {
+                reserveStock(user, products.get(productId), oldQty, newQty, "already in cart: " + oldQty);
+            } else if (newQty < oldQty && stockReservationEngine.isEnabled()) {
+                stockReservationEngine.hold(user.getId(), productId, newQty);
+            }
+            stockReservationService.adjust(productId, newQty - oldQty);
+        }
+
+        cart.setUpdatedAt(LocalDateTime.now());
+        cartRepository.save(cart);
+        cartCountService.updateAfterCommit(user.getId(), cart.getTotalItems());
+        return convertToDto(cart);
+    }
+
+    /**
+     * Adds the lines of one of the user's past orders to their active cart.
+     * All referenced products are loaded with one query and stock is checked once per product;
+     * lines that no longer fit are added in part or skipped and listed in the response.
+     */
+    @Transactional
+    public ReorderResponse reorder(User user, Long orderId) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User must be logged in to reorder.");
+        }
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+        if (!order.getUser().getId().equals(user.getId())) {
+            throw new IllegalArgumentException("Access denied for this order");
+        }
+        applyPendingQuantities(user);
+
+        Cart cart = cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+                .orElseGet(() -> createNewCartForUser(user));
+        Map<Long, Integer> before = quantitiesByProduct(cart);
+        Map<Long, Product> products = productService.getProductEntitiesByIds(order.getItems().stream()
+                .map(OrderItem::getProductId)
+                .collect(Collectors.toSet()));
+
+        Map<Long, Integer> room = roomByProduct(user, products.values(), before);
+
+        List<ReorderLineDto> unavailable = new ArrayList<>();
+        int addedLines = 0;
+        for (OrderItem orderItem : order.getItems()) {
+            Product product = products.get(orderItem.getProductId());
+            int requested = orderItem.getQuantity();
+            if (product == null) {
+                unavailable.add(new ReorderLineDto(orderItem.getProductId(), orderItem.getProductName(),
+                        orderItem.getSize(), requested, 0, "PRODUCT_UNAVAILABLE"));
+                continue;
+            }
+            int qty = Math.min(requested, room.get(product.getId()));
+            if (qty <= 0) {
+                unavailable.add(new ReorderLineDto(product.getId(), product.getName(),
+                        orderItem.getSize(), requested, 0, "OUT_OF_STOCK"));
+                continue;
+            }
+            room.merge(product.getId(), -qty, Integer::sum);
+            addToLine(cart, product, orderItem.getSize(), qty);
+
+            if (qty < requested) {
+                unavailable.add(new ReorderLineDto(product.getId(), product.getName(),
+                        orderItem.getSize(), requested, qty, "PARTIAL_STOCK"));
+            } else {
+                addedLines++;
+            }
+        }
+        cart.updateGstAmount(gstRate);
+        reserveAddedUnits(user, cart, products, before);
+
+        // New lines are inserted in one batch through the cart's cascade
+        cart.setUpdatedAt(LocalDateTime.now());
+        cartRepository.save(cart);
+        cartCountService.updateAfterCommit(user.getId(), cart.getTotalItems());
+        return new ReorderResponse(convertToDto(cart), order.getItems().size(), addedLines, unavailable);
+    }
+
+    /**
+     * Moves the lines of a guest cart into the user's active cart in one transaction.
+     * Products are loaded with one query and stock is checked once per product; lines that
+     * no longer fit are added in part or dropped. The guest cart is discarded once this commits.
+     * @return The number of units added to the user's cart.
+     */
+    @Transactional
+    public int mergeGuestCart(User user, UUID guestId) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User must be logged in to merge a guest cart.");
+        }
+        List<GuestCartService.Line> lines = guestCartService.takeForMerge(guestId);
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        applyPendingQuantities(user);
+
+        Cart cart = cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+                .orElseGet(() -> createNewCartForUser(user));
+        Map<Long, Integer> before = quantitiesByProduct(cart);
+        Map<Long, Product> products = productService.getProductEntitiesByIds(lines.stream()
+                .map(GuestCartService.Line::productId)
+                .collect(Collectors.toSet()));
+        Map<Long, Integer> room = roomByProduct(user, products.values(), before);
+
+        int added = 0;
+        for (GuestCartService.Line line : lines) {
+            Product product = products.get(line.productId());
+            int qty = product != null ? Math.min(line.quantity(), room.get(product.getId())) : 0;
+            if (qty <= 0) {
+                continue;
+            }
+            room.merge(product.getId(), -qty, Integer::sum);
+            addToLine(cart, product, line.size(), qty);
+            added += qty;
+        }
+        if (added == 0) {
+            return 0;
+        }
+        cart.updateGstAmount(gstRate);
+        reserveAddedUnits(user, cart, products, before);
+
+        cart.setUpdatedAt(LocalDateTime.now());
+        cartRepository.save(cart);
+        cartCountService.updateAfterCommit(user.getId(), cart.getTotalItems());
+        logger.info("Merged guest cart into cart {} for user {}: {} unit(s) added", cart.getId(), user.getId(), added);
+        return added;
+    }
+
+    /**
+     * Brings the active cart up to date with the catalog: every line takes its product's current
+     * price, and lines that no longer fit the available stock are reduced or removed.
+     * The response lists what changed.
+     */
+    @Transactional
+    public CartRevalidationResponse revalidateCart(User user) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User must be logged in to revalidate the cart.");
+        }
+        applyPendingQuantities(user);
+        Cart cart = getCartEntityForAddOrUpdate(user);
+
+        List<CartLineChangeDto> changes = revalidateLines(user, cart, true);
+        if (!changes.isEmpty()) {
+            cart.setUpdatedAt(LocalDateTime.now());
+            cartRepository.save(cart);
+            cartCountService.updateAfterCommit(user.getId(), cart.getTotalItems());
+            logger.info("Revalidated cart {} for user {}: {} line(s) changed", cart.getId(), user.getId(), changes.size());
+        }
+        return new CartRevalidationResponse(convertToDto(cart), !changes.isEmpty(), changes);
+    }
+
+    /**
+     * Records a quantity change for the write coalescer instead of persisting it.
+     * Only checks that the line exists; stock is checked when the change is flushed.
+     * The returned cart shows the pending quantity.
+     */
+    @Transactional(readOnly = true)
+    public CartDto queueItemQuantity(User user, Long productId, int quantity) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User must be logged in to update the cart.");
+        }
+        Cart cart = cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+                .orElseThrow(() -> new IllegalArgumentException("Active cart not found for user."));
+        boolean inCart = cart.getItems().stream()
+                .anyMatch(i -> i.getProduct().getId().equals(productId));
+        if (!inCart && !cartWriteCoalescer.pendingFor(user.getId()).containsKey(productId)) {
+            throw new IllegalArgumentException("Cart item not found: " + productId);
+        }
+        cartWriteCoalescer.submit(user, productId, quantity);
+        CartDto dto = convertToDto(cart);
+        cartCountService.updateAfterCommit(user.getId(), dto.getTotalItems());
+        return dto;
+    }
+
+    /**
+     * Persists the user's coalesced quantity changes. Changes that can no longer be applied
+     * (line removed, not enough stock) are dropped and logged.
+     */
+    @Transactional
+    public void flushPendingQuantities(User user) {
+        applyPendingQuantities(user);
+    }
+
+    /**
+     * Prices the active cart for the review step and returns a signed quote of its totals and
+     * shipping address. Lines are repriced first; a line that no longer fits the stock fails the
+     * quote. Checkout honours the quote while the cart stays at the quoted revision.
+     */
+    @Transactional
+    public CheckoutQuoteResponse quoteCheckout(User user, CheckoutQuoteRequest request) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("Authenticated user required for checkout.");
+        }
+        applyPendingQuantities(user);
+        CheckoutSnapshotLoader.CheckoutSnapshot snapshot = checkoutSnapshotLoader.load(user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("No active cart for user."));
+        user = snapshot.user();
+        Cart cart = snapshot.cart();
+        if (cart.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Cannot checkout an empty cart.");
+        }
+        ShippingAddress shippingAddress = resolveShippingAddress(user, request.getSelectedAddressId(),
+                request.getNewAddress(), snapshot.defaultAddress());
+
+        if (!revalidateLines(user, cart, false).isEmpty()) {
+            cart.setUpdatedAt(LocalDateTime.now());
+        }
+        // Flush now so the quote carries the revision that repricing or pending changes produce
+        cartRepository.flush();
+
+        BigDecimal subtotalBeforeTax = cart.computeTotalPrice();
+        BigDecimal gstAmount = subtotalBeforeTax.multiply(BigDecimal.valueOf(gstRate)).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal totalAmount = subtotalBeforeTax.add(gstAmount);
+        String token = checkoutQuoteService.issue(new CheckoutQuoteService.Quote(
+                user.getId(), cart.getId(), cart.getRevision(),
+                subtotalBeforeTax, gstAmount, totalAmount, shippingAddress));
+
+        AddressDto address = new AddressDto(null,
+                shippingAddress.getStreet(), shippingAddress.getCity(), shippingAddress.getState(),
+                shippingAddress.getPostalCode(), shippingAddress.getCountry());
+        return new CheckoutQuoteResponse(token,
+                LocalDateTime.now().plus(Duration.ofMillis(checkoutQuoteService.getTtlMs())),
+                cart.getRevision(), convertToDto(cart), address);
+    }
+
+    /**
+     * Runs the checks {@link #checkoutCart} fails on (cart, address, line stock) without writing
+     * anything, and returns the units of each product the checkout would take. Deliberately not
+     * transactional: a failed check throws without marking the caller's transaction for rollback,
+     * so the group-commit pipeline can turn one bad request away without losing its batch.
+     * Pending coalesced quantities should be flushed first, as checkoutCart would apply them.
+     */
+    public Map<Long, Integer> precheckCheckout(User user, CheckoutRequest checkoutRequest) {
+        CheckoutSnapshotLoader.CheckoutSnapshot snapshot = checkoutSnapshotLoader.load(user.getId())
+                .orElseThrow(() ->
+                        new IllegalArgumentException(
+                                "No active cart for user, or cart is not in ACTIVE status."));
+        Cart cart = snapshot.cart();
+        if (cart.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Cannot checkout an empty cart.");
+        }
+        ShippingAddress shippingAddress = resolveShippingAddress(snapshot.user(),
+                checkoutRequest.getSelectedAddressId(), checkoutRequest.getNewAddress(), snapshot.defaultAddress());
+        boolean quoted = isQuoteCurrent(checkoutQuoteService
+                .verify(checkoutRequest.getQuoteToken(), user.getId())
+                .orElse(null), cart, shippingAddress);
+        if (!quoted) {
+            planLineQuantities(snapshot.user(), cart, false);
+        }
+        if (savesNewAddress(checkoutRequest)) {
+            try {
+                UserAddress.AddressType.valueOf(checkoutRequest.getSaveAddressAs());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown address type: " + checkoutRequest.getSaveAddressAs());
+            }
+        }
+        return quantitiesByProduct(cart);
+    }
+
     /**
      * Checks out the active cart for an authenticated user, creating an order.
+     * With a quote token for the unchanged cart and the same shipping address, the quoted totals
+     * are used and the cart is not repriced or re-checked (stock is still deducted with guarded updates).
      */
     @Transactional
     public Order checkoutCart(User initialUser, CheckoutRequest checkoutRequest) {
@@ -251,26 +617,70 @@ public class CartService {
                     "Authenticated user required for checkout.");
         }
 
-        User userForOrder = userService.findById(initialUser.getId())
-                .orElseThrow(() -> new RuntimeException("User not found during checkout."));
+        CheckoutQuoteService.Quote quote = checkoutQuoteService
+                .verify(checkoutRequest.getQuoteToken(), initialUser.getId())
+                .orElse(null);
 
-        // Handle address selection and management
-        ShippingAddress orderShippingAddress = handleAddressForCheckout(userForOrder, checkoutRequest);
+        // Coalesced quantity changes must be in the cart before it is priced
+        applyPendingQuantities(initialUser);
 
-        Cart activeCart = cartRepository
-                .findByUserAndStatus(userForOrder, Cart.CartStatus.ACTIVE)
+        // User, cart, items, products and default address in one query, whatever the number of lines
+        CheckoutSnapshotLoader.CheckoutSnapshot snapshot = checkoutSnapshotLoader.load(initialUser.getId())
                 .orElseThrow(() ->
                         new IllegalArgumentException(
                                 "No active cart for user, or cart is not in ACTIVE status."));
+        User userForOrder = snapshot.user();
+        Cart activeCart = snapshot.cart();
 
         if (activeCart.getItems().isEmpty()) {
             throw new IllegalArgumentException(
                     "Cannot checkout an empty cart.");
         }
 
-        BigDecimal subtotalBeforeTax = activeCart.getTotalPrice();
-        BigDecimal gstAmount = subtotalBeforeTax.multiply(BigDecimal.valueOf(gstRate)).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal totalAmount = subtotalBeforeTax.add(gstAmount);
+        // The request's address always decides where the order ships
+        ShippingAddress orderShippingAddress = resolveShippingAddress(userForOrder,
+                checkoutRequest.getSelectedAddressId(), checkoutRequest.getNewAddress(), snapshot.defaultAddress());
+        boolean quoted = isQuoteCurrent(quote, activeCart, orderShippingAddress);
+        if (quote != null && !quoted) {
+            logger.debug("Checkout quote for cart {} is stale or for another address; validating in full",
+                    activeCart.getId());
+        }
+        saveNewAddressIfRequested(userForOrder, checkoutRequest);
+
+        if (!quoted) {
+            // Charge current prices; a line that no longer fits the stock fails the checkout
+            List<CartLineChangeDto> repriced = revalidateLines(userForOrder, activeCart, false);
+            if (!repriced.isEmpty()) {
+                logger.info("Checkout repriced {} line(s) of cart {}", repriced.size(), activeCart.getId());
+            }
+        }
+
+        // Deduct stock up front with guarded updates; same product in different sizes is summed
+        Map<Long, Integer> quantitiesByProduct = new TreeMap<>();
+        for (CartItem cartItem : activeCart.getItems()) {
+            quantitiesByProduct.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        productService.deductStock(quantitiesByProduct);
+        stockReservationEngine.onCheckoutCommitted(userForOrder.getId(), quantitiesByProduct);
+
+        // The amount charged is always the line total (checked against the quote above);
+        // the stored running totals are only compared
+        BigDecimal subtotalBeforeTax;
+        BigDecimal gstAmount;
+        BigDecimal totalAmount;
+        if (quoted) {
+            subtotalBeforeTax = quote.subtotal();
+            gstAmount = quote.gstAmount();
+            totalAmount = quote.totalAmount();
+        } else {
+            subtotalBeforeTax = activeCart.computeTotalPrice();
+            if (subtotalBeforeTax.compareTo(activeCart.getTotalPrice()) != 0) {
+                logger.warn("Cart {} stored subtotal {} differs from its lines {}; charging the line total",
+                        activeCart.getId(), activeCart.getTotalPrice(), subtotalBeforeTax);
+            }
+            gstAmount = subtotalBeforeTax.multiply(BigDecimal.valueOf(gstRate)).setScale(2, RoundingMode.HALF_UP);
+            totalAmount = subtotalBeforeTax.add(gstAmount);
+        }
 
         Order order = new Order();
         order.setUser(userForOrder);
@@ -290,14 +700,9 @@ public class CartService {
         order.setOrderDate(LocalDateTime.now());
         order = orderRepository.save(order);
 
-        for (CartItem cartItem : new ArrayList<>(activeCart.getItems())) {
+        List<OrderItem> orderItems = new ArrayList<>(activeCart.getItems().size());
+        for (CartItem cartItem : activeCart.getItems()) {
             Product product = cartItem.getProduct();
-            if (product.getStockQuantity() == null
-                    || product.getStockQuantity() < cartItem.getQuantity()) {
-                throw new IllegalArgumentException(
-                        "Insufficient stock for product: " +
-                                product.getName() + ". Available: " + product.getStockQuantity() + ", Requested: " + cartItem.getQuantity());
-            }
 
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -311,20 +716,20 @@ public class CartService {
                             .multiply(BigDecimal.valueOf(cartItem.getQuantity()))
                             .setScale(2, RoundingMode.HALF_UP)
             );
-            orderItemRepository.save(orderItem);
-
-            product.setStockQuantity(
-                    product.getStockQuantity() - cartItem.getQuantity()
-            );
-            productService.saveProductEntity(product);
-
-            activeCart.getItems().remove(cartItem);
-            cartItemRepository.delete(cartItem);
+            orderItems.add(orderItem);
         }
+        // Inserted as one JDBC batch; the cart items are removed by orphan removal in a batched delete
+        orderItemRepository.saveAll(orderItems);
+        activeCart.getItems().clear();
+        activeCart.recalculateTotals(gstRate);
+
+        // The units leave the cart as sold stock, so they are no longer reserved
+        quantitiesByProduct.forEach(stockReservationService::release);
 
         activeCart.setStatus(Cart.CartStatus.ORDERED);
         activeCart.setUser(userForOrder);
         cartRepository.save(activeCart);
+        cartCountService.updateAfterCommit(userForOrder.getId(), 0);
         
         // Notify admin about new order
         notificationService.notifyNewOrder(order, userForOrder);
@@ -333,15 +738,17 @@ public class CartService {
     }
 
     /**
-     * Handle address selection and management during checkout
+     * Works out the shipping address from an existing address ID, a new address, or the default
+     * address already read with the checkout snapshot (null if the user has none).
      */
-    private ShippingAddress handleAddressForCheckout(User user, CheckoutRequest checkoutRequest) {
+    private ShippingAddress resolveShippingAddress(User user, Long selectedAddressId,
+                                                   AddressDto newAddress, ShippingAddress defaultAddress) {
         ShippingAddress orderShippingAddress = new ShippingAddress();
 
         // If user selected an existing address
-        if (checkoutRequest.getSelectedAddressId() != null) {
+        if (selectedAddressId != null) {
             com.example.handPick.dto.UserAddressDto selectedAddress = userAddressService.getAddressById(
-                    checkoutRequest.getSelectedAddressId(), user.getId());
+                    selectedAddressId, user.getId());
             
             orderShippingAddress.setStreet(selectedAddress.getStreet());
             orderShippingAddress.setCity(selectedAddress.getCity());
@@ -350,56 +757,286 @@ public class CartService {
             orderShippingAddress.setCountry(selectedAddress.getCountry());
         }
         // If user provided a new address
-        else if (checkoutRequest.getNewAddress() != null) {
-            com.example.handPick.dto.AddressDto newAddress = checkoutRequest.getNewAddress();
-            
+        else if (newAddress != null) {
             orderShippingAddress.setStreet(newAddress.getStreet());
             orderShippingAddress.setCity(newAddress.getCity());
             orderShippingAddress.setState(newAddress.getState());
             orderShippingAddress.setPostalCode(newAddress.getPostalCode());
             orderShippingAddress.setCountry(newAddress.getCountry());
-
-            // Handle address saving based on user preference
-            if (checkoutRequest.getSaveAddressAs() != null && 
-                !checkoutRequest.getSaveAddressAs().equals("ONE_TIME")) {
-                
-                com.example.handPick.dto.UserAddressDto addressToSave = new com.example.handPick.dto.UserAddressDto();
-                addressToSave.setStreet(newAddress.getStreet());
-                addressToSave.setCity(newAddress.getCity());
-                addressToSave.setState(newAddress.getState());
-                addressToSave.setPostalCode(newAddress.getPostalCode());
-                addressToSave.setCountry(newAddress.getCountry());
-                addressToSave.setAddressLabel(checkoutRequest.getAddressLabel());
-                addressToSave.setAddressType(checkoutRequest.getSaveAddressAs());
-                addressToSave.setDefault(checkoutRequest.isSetAsDefault());
-
-                userAddressService.addAddress(user.getId(), addressToSave);
-                logger.info("Saved new address for user {} as {}", user.getId(), checkoutRequest.getSaveAddressAs());
-            }
         }
         // Use default address if available
         else {
-            return userAddressService.getDefaultAddress(user.getId())
-                    .map(defaultAddress -> {
-                        ShippingAddress defaultShippingAddress = new ShippingAddress();
-                        defaultShippingAddress.setStreet(defaultAddress.getStreet());
-                        defaultShippingAddress.setCity(defaultAddress.getCity());
-                        defaultShippingAddress.setState(defaultAddress.getState());
-                        defaultShippingAddress.setPostalCode(defaultAddress.getPostalCode());
-                        defaultShippingAddress.setCountry(defaultAddress.getCountry());
-                        return defaultShippingAddress;
-                    })
-                    .orElseThrow(() -> new IllegalArgumentException("No shipping address provided and no default address found."));
+            if (defaultAddress == null) {
+                throw new IllegalArgumentException("No shipping address provided and no default address found.");
+            }
+            return defaultAddress;
         }
 
         return orderShippingAddress;
     }
 
+    /**
+     * Saves a new checkout address to the user's address book when they asked for it.
+     */
+    private void saveNewAddressIfRequested(User user, CheckoutRequest checkoutRequest) {
+        AddressDto newAddress = checkoutRequest.getNewAddress();
+        // Handle address saving based on user preference
+        if (savesNewAddress(checkoutRequest)) {
+            
+            com.example.handPick.dto.UserAddressDto addressToSave = new com.example.handPick.dto.UserAddressDto();
+            addressToSave.setStreet(newAddress.getStreet());
+            addressToSave.setCity(newAddress.getCity());
+            addressToSave.setState(newAddress.getState());
+            addressToSave.setPostalCode(newAddress.getPostalCode());
+            addressToSave.setCountry(newAddress.getCountry());
+            addressToSave.setAddressLabel(checkoutRequest.getAddressLabel());
+            addressToSave.setAddressType(checkoutRequest.getSaveAddressAs());
+            addressToSave.setDefault(checkoutRequest.isSetAsDefault());
+
+            userAddressService.addAddress(user.getId(), addressToSave);
+            logger.info("Saved new address for user {} as {}", user.getId(), checkoutRequest.getSaveAddressAs());
+        }
+    }
+
     // ─── Private Helpers ──────────────────────────────────────────────────
 
+    // The quote stands only for the exact cart revision it priced, shipped to the address it was issued for
+    private static boolean isQuoteCurrent(CheckoutQuoteService.Quote quote, Cart cart, ShippingAddress shippingAddress) {
+        return quote != null
+                && quote.cartId().equals(cart.getId())
+                && quote.revision() == cart.getRevision()
+                && quote.subtotal().compareTo(cart.computeTotalPrice()) == 0
+                && quote.shippingAddress().equals(shippingAddress);
+    }
+
+    private static boolean savesNewAddress(CheckoutRequest checkoutRequest) {
+        return checkoutRequest.getSelectedAddressId() == null
+                && checkoutRequest.getNewAddress() != null
+                && checkoutRequest.getSaveAddressAs() != null
+                && !checkoutRequest.getSaveAddressAs().equals("ONE_TIME");
+    }
+
+    /**
+     * Ensures the cart may hold totalRequested units of a product.
+     * With the in-memory engine the user's hold is raised to the new total without touching the
+     * database; otherwise the reservation ledger is read. Units this cart already holds are part
+     * of the ledger, so they are added back to what the ledger reports as available.
+     */
+    private void reserveStock(User user, Product product, int totalInCart, int totalRequested, String cartDetail) {
+        int availableStock;
+        if (stockReservationEngine.isEnabled()) {
+            if (stockReservationEngine.hold(user.getId(), product.getId(), totalRequested)) {
+                return;
+            }
+            availableStock = stockReservationEngine.getAvailableFor(user.getId(), product.getId());
+        } else {
+            availableStock = productService.getAvailableStock(product) + totalInCart;
+            if (availableStock >= totalRequested) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Insufficient stock. Available: " + availableStock +
+                ", requested: " + totalRequested +
+                " (" + cartDetail + ")");
+    }
+
+    /**
+     * Lowers the user's engine hold to whatever is still in the cart for that product.
+     */
+    private void releaseEngineHold(User user, Cart cart, Long productId) {
+        if (!stockReservationEngine.isEnabled()) {
+            return;
+        }
+        int remaining = cart.getItems().stream()
+                .filter(i -> i.getProduct().getId().equals(productId))
+                .mapToInt(CartItem::getQuantity)
+                .sum();
+        stockReservationEngine.hold(user.getId(), productId, remaining);
+    }
+
+    /**
+     * Applies pending coalesced quantity changes through updateItemQuantity, inside the caller's transaction.
+     * A change that fails validation is dropped; it throws before touching anything, so the
+     * transaction stays usable.
+     */
+    private void applyPendingQuantities(User user) {
+        Map<Long, Integer> pending = cartWriteCoalescer.drain(user.getId());
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, Integer> change : pending.entrySet()) {
+            try {
+                updateItemQuantity(user, null, change.getKey(), change.getValue());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Dropped coalesced quantity {} of product {} for user {}: {}",
+                        change.getValue(), change.getKey(), user.getId(), e.getMessage());
+                cartCountService.evictAfterCommit(user.getId());
+            }
+        }
+    }
+
+    /**
+     * Units of each product the cart may hold in total, counting the units it already holds.
+     * Ledger figures for all products are read with batched queries.
+     */
+    private Map<Long, Integer> allowanceByProduct(User user, Collection<Product> products, Map<Long, Integer> inCart) {
+        Map<Long, Integer> allowance = new HashMap<>();
+        Map<Long, Integer> available = stockReservationEngine.isEnabled()
+                ? Map.of()
+                : productService.getAvailableStock(products);
+        for (Product product : products) {
+            int total = stockReservationEngine.isEnabled()
+                    ? stockReservationEngine.getAvailableFor(user.getId(), product.getId())
+                    : available.get(product.getId()) + inCart.getOrDefault(product.getId(), 0);
+            allowance.put(product.getId(), Math.max(0, total));
+        }
+        return allowance;
+    }
+
+    /**
+     * Units of each product the cart can still take, given what it already holds.
+     */
+    private Map<Long, Integer> roomByProduct(User user, Collection<Product> products, Map<Long, Integer> inCart) {
+        Map<Long, Integer> room = allowanceByProduct(user, products, inCart);
+        room.replaceAll((productId, allowed) -> Math.max(0, allowed - inCart.getOrDefault(productId, 0)));
+        return room;
+    }
+
+    /**
+     * Reprices every line from its product and trims lines to the stock the cart may still hold,
+     * earlier lines first. The products arrive with the cart's single items query and stock is read
+     * with batched queries, so the cost does not grow with per-product round trips.
+     * @param trimToStock If false, a line that no longer fits fails the call before anything changes.
+     * @return One entry per line whose price or quantity changed.
+     */
+    private List<CartLineChangeDto> revalidateLines(User user, Cart cart, boolean trimToStock) {
+        if (cart.getItems().isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> before = quantitiesByProduct(cart);
+        // Plan first so a strict caller can fail without having changed anything
+        Map<CartItem, Integer> allowedQuantities = planLineQuantities(user, cart, trimToStock);
+
+        List<CartLineChangeDto> changes = new ArrayList<>();
+        Iterator<CartItem> it = cart.getItems().iterator();
+        while (it.hasNext()) {
+            CartItem item = it.next();
+            Product product = item.getProduct();
+            BigDecimal oldPrice = item.getPrice();
+            int oldQty = item.getQuantity();
+            int newQty = allowedQuantities.get(item);
+            if (newQty == oldQty && product.getPrice().compareTo(oldPrice) == 0) {
+                continue;
+            }
+
+            cart.excludeFromTotals(item);
+            String reason;
+            if (newQty == 0) {
+                it.remove(); // Deleted by orphan removal
+                reason = "OUT_OF_STOCK";
+            } else {
+                item.setQuantity(newQty);
+                item.setPrice(product.getPrice());
+                cart.includeInTotals(item);
+                reason = newQty < oldQty ? "QUANTITY_REDUCED" : "PRICE_CHANGED";
+            }
+            changes.add(new CartLineChangeDto(product.getId(), product.getName(), item.getSize(),
+                    oldPrice, product.getPrice(), oldQty, newQty, reason));
+        }
+        if (changes.isEmpty()) {
+            return changes;
+        }
+
+        // Trimmed units go back to the pool, one ledger adjustment per product
+        Map<Long, Integer> after = quantitiesByProduct(cart);
+        for (Long productId : new TreeSet<>(before.keySet())) {
+            int kept = after.getOrDefault(productId, 0);
+            int released = before.get(productId) - kept;
+            if (released > 0) {
+                stockReservationService.release(productId, released);
+                if (stockReservationEngine.isEnabled()) {
+                    stockReservationEngine.hold(user.getId(), productId, kept);
+                }
+            }
+        }
+        cart.updateGstAmount(gstRate);
+        return changes;
+    }
+
+    /**
+     * Units each line may keep given the stock the cart may hold, earlier lines first.
+     * @param trimToStock If false, throws for the first line that does not fit.
+     */
+    private Map<CartItem, Integer> planLineQuantities(User user, Cart cart, boolean trimToStock) {
+        Map<Long, Product> products = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            products.putIfAbsent(item.getProduct().getId(), item.getProduct());
+        }
+        Map<Long, Integer> remaining = allowanceByProduct(user, products.values(), quantitiesByProduct(cart));
+
+        Map<CartItem, Integer> allowedQuantities = new IdentityHashMap<>();
+        for (CartItem item : cart.getItems()) {
+            Long productId = item.getProduct().getId();
+            int allowed = Math.min(item.getQuantity(), remaining.get(productId));
+            remaining.merge(productId, -allowed, Integer::sum);
+            if (allowed < item.getQuantity() && !trimToStock) {
+                throw new IllegalArgumentException(
+                        "Insufficient stock for " + item.getProduct().getName() +
+                        ". Available: " + allowed + ", requested: " + item.getQuantity() +
+                        ". Revalidate the cart to review the changes.");
+            }
+            allowedQuantities.put(item, allowed);
+        }
+        return allowedQuantities;
+    }
+
+    /**
+     * Adds units to the cart's line for a product and size, creating the line if needed.
+     */
+    private void addToLine(Cart cart, Product product, String size, int qty) {
+        Optional<CartItem> line = cart.getItems().stream()
+                .filter(i -> i.getProduct().getId().equals(product.getId()) &&
+                        Objects.equals(size, i.getSize()))
+                .findFirst();
+        if (line.isPresent()) {
+            cart.excludeFromTotals(line.get());
+            line.get().setQuantity(line.get().getQuantity() + qty);
+            line.get().setPrice(product.getPrice());
+            cart.includeInTotals(line.get());
+        } else {
+            CartItem item = new CartItem(product, qty, cart, size);
+            cart.getItems().add(item);
+            cart.includeInTotals(item);
+        }
+    }
+
+    /**
+     * Reserves the units added to each product since the before snapshot, in ascending ID order.
+     */
+    private void reserveAddedUnits(User user, Cart cart, Map<Long, Product> products, Map<Long, Integer> before) {
+        Map<Long, Integer> after = quantitiesByProduct(cart);
+        for (Long productId : new TreeSet<>(after.keySet())) {
+            int oldQty = before.getOrDefault(productId, 0);
+            int newQty = after.get(productId);
+            if (newQty > oldQty) {
+                reserveStock(user, products.get(productId), oldQty, newQty, "already in cart: " + oldQty);
+                stockReservationService.adjust(productId, newQty - oldQty);
+            }
+        }
+    }
+
+    private Map<Long, Integer> quantitiesByProduct(Cart cart) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
     private Cart getCartEntityForAddOrUpdate(User user) {
         if (user != null && user.getId() != null) {
-            return cartRepository.findByUserAndStatus(user, Cart.CartStatus.ACTIVE)
+            return cartRepository.findWithItemsByUserAndStatus(user, Cart.CartStatus.ACTIVE)
                     .orElseGet(() -> createNewCartForUser(user));
         } else {
             throw new IllegalArgumentException("Cannot get or create cart: A user ID must be provided.");
@@ -420,8 +1057,24 @@ public class CartService {
                 .map(this::convertItemToDto)
                 .collect(Collectors.toList());
 
+        // Totals come from the cart row, kept current by each mutation
         BigDecimal subtotalBeforeTax = cart.getTotalPrice();
-        BigDecimal gstAmount = subtotalBeforeTax.multiply(BigDecimal.valueOf(gstRate)).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal gstAmount = cart.getGstAmount();
+        int totalItems = cart.getTotalItems();
+
+        // Quantity changes still waiting in the write coalescer are shown as if persisted
+        Map<Long, Integer> pending = cart.getUser() != null
+                ? cartWriteCoalescer.pendingFor(cart.getUser().getId())
+                : Map.of();
+        if (!pending.isEmpty()) {
+            items = applyPendingToItems(items, pending);
+            subtotalBeforeTax = items.stream()
+                    .map(CartItemDto::getSubtotal)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add)
+                    .setScale(2, RoundingMode.HALF_UP);
+            gstAmount = subtotalBeforeTax.multiply(BigDecimal.valueOf(gstRate)).setScale(2, RoundingMode.HALF_UP);
+            totalItems = items.stream().mapToInt(CartItemDto::getQuantity).sum();
+        }
         BigDecimal totalAmount = subtotalBeforeTax.add(gstAmount);
 
         return new CartDto(
@@ -430,12 +1083,30 @@ public class CartService {
                 subtotalBeforeTax,
                 gstAmount,
                 totalAmount,
-                cart.getTotalItems(),
+                totalItems,
                 cart.getUser() != null ? cart.getUser().getId() : null,
                 cart.getStatus().name()
         );
     }
 
+    // Mirrors updateItemQuantity: the first line of each product takes the pending quantity
+    private List<CartItemDto> applyPendingToItems(List<CartItemDto> items, Map<Long, Integer> pending) {
+        List<CartItemDto> result = new ArrayList<>(items.size());
+        Set<Long> applied = new HashSet<>();
+        for (CartItemDto item : items) {
+            Integer quantity = pending.get(item.getProductId());
+            if (quantity != null && applied.add(item.getProductId())) {
+                if (quantity <= 0) {
+                    continue;
+                }
+                item.setQuantity(quantity);
+                item.setSubtotal(item.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
     private CartItemDto convertItemToDto(CartItem item) {
         CartItemDto dto = new CartItemDto();
         dto.setId(item.getId());
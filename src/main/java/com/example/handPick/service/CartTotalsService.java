@@ -0,0 +1,95 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Cart;
+import com.example.handPick.repository.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Consistency check for the running totals stored on ACTIVE carts (subtotal, item_count, gst_amount).
+ * Cart mutations maintain them incrementally; this job finds carts whose stored values disagree with
+ * their items and rebuilds them, one bounded batch per short transaction.
+ */
+@Service
+public class CartTotalsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartTotalsService.class);
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate repairTransaction;
+
+    @Value("${app.gst.rate:0.18}")
+    private double gstRate;
+
+    @Value("${app.cart.totals.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.cart.totals.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Autowired
+    public CartTotalsService(CartRepository cartRepository, PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.repairTransaction = new TransactionTemplate(transactionManager);
+        this.repairTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Finds ACTIVE carts with drifted totals and recomputes them from their items.
+     * @return The number of carts whose stored totals were corrected.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.totals.verify-interval-ms:900000}",
+            initialDelayString = "${app.cart.totals.verify-initial-delay-ms:180000}")
+    public int verifyTotals() {
+        int repaired = 0;
+        long afterId = 0L;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = cartRepository.findIdsWithStaleTotals(
+                    Cart.CartStatus.ACTIVE, afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer changed = repairTransaction.execute(status -> repair(ids));
+            repaired += changed != null ? changed : 0;
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        if (repaired > 0) {
+            logger.warn("Cart totals check repaired {} cart(s)", repaired);
+        }
+        return repaired;
+    }
+
+    private int repair(List<Long> ids) {
+        int changed = 0;
+        // Locked with their items, so the recount sees every committed line change
+        for (Cart cart : cartRepository.findAllByIdForUpdate(ids)) {
+            BigDecimal storedSubtotal = cart.getSubtotal();
+            Integer storedCount = cart.getItemCount();
+            BigDecimal storedGst = cart.getGstAmount();
+            cart.recalculateTotals(gstRate);
+            if (storedSubtotal.compareTo(cart.getSubtotal()) != 0
+                    || !storedCount.equals(cart.getItemCount())
+                    || storedGst.compareTo(cart.getGstAmount()) != 0) {
+                logger.warn("Cart {} totals drifted: stored subtotal={} items={}, lines subtotal={} items={}",
+                        cart.getId(), storedSubtotal, storedCount, cart.getSubtotal(), cart.getItemCount());
+                cartRepository.save(cart);
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.User;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional write-coalescing for cart quantity changes. When enabled, PUT /api/cart/item/{productId}
+ * only records the requested quantity here; repeated changes to the same line within the window
+ * collapse into one persisted update. A user's pending quantities are flushed window-ms after their
+ * last change (but never later than max-delay-ms after the first), before any other mutation of
+ * their cart, and when the application shuts down. Quantities drained into a transaction that rolls
+ * back are queued again. Pending changes are lost if the process dies before a flush, so
+ * max-delay-ms bounds how much a crash can lose.
+ */
+@Service
+public class CartWriteCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteCoalescer.class);
+
+    // Looked up lazily: CartService itself asks this class for pending writes
+    private final ObjectProvider<CartService> cartService;
+    private final ConcurrentHashMap<Long, PendingWrites> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.cart.write-coalescing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cart.write-coalescing.window-ms:500}")
+    private long windowMs;
+
+    @Value("${app.cart.write-coalescing.max-delay-ms:2000}")
+    private long maxDelayMs;
+
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    @Autowired
+    public CartWriteCoalescer(ObjectProvider<CartService> cartService) {
+        this.cartService = cartService;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-write-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Cart write coalescing enabled (window {} ms, max delay {} ms)", windowMs, maxDelayMs);
+    }
+
+    /**
+     * Flushes everything still pending before the context starts destroying beans.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void flushAllOnShutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        for (Long userId : new ArrayList<>(pending.keySet())) {
+            flush(userId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && scheduler != null && !scheduler.isShutdown();
+    }
+
+    /**
+     * Records the latest requested quantity of a product in the user's cart and (re)arms the flush timer.
+     */
+    public void submit(User user, Long productId, int quantity) {
+        long now = System.currentTimeMillis();
+        submitted.incrementAndGet();
+        pending.compute(user.getId(), (userId, writes) -> {
+            if (writes == null) {
+                writes = new PendingWrites(user, now);
+            }
+            synchronized (writes) {
+                if (writes.quantities.put(productId, quantity) != null) {
+                    coalesced.incrementAndGet();
+                }
+                scheduleFlush(userId, writes, now);
+            }
+            return writes;
+        });
+    }
+
+    /**
+     * The user's pending quantities by product, for overlaying on cart reads. Empty if none.
+     */
+    public Map<Long, Integer> pendingFor(Long userId) {
+        PendingWrites writes = pending.get(userId);
+        if (writes == null) {
+            return Map.of();
+        }
+        synchronized (writes) {
+            return new LinkedHashMap<>(writes.quantities);
+        }
+    }
+
+    /**
+     * Removes and returns the user's pending quantities so the caller can persist them.
+     * If the caller's transaction does not commit, they are queued again, under any newer changes.
+     */
+    public Map<Long, Integer> drain(Long userId) {
+        PendingWrites writes = pending.remove(userId);
+        if (writes == null) {
+            return Map.of();
+        }
+        Map<Long, Integer> drained;
+        synchronized (writes) {
+            if (writes.flushTask != null) {
+                writes.flushTask.cancel(false);
+            }
+            drained = writes.quantities;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // Quantities are absolute, so restoring after an unknown outcome is also safe
+                    if (status != STATUS_COMMITTED) {
+                        restore(writes.user, drained);
+                    }
+                }
+            });
+        }
+        return drained;
+    }
+
+    /**
+     * Pending users, coalescing ratio and flush outcomes for the admin dashboard.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("windowMs", windowMs);
+        stats.put("maxDelayMs", maxDelayMs);
+        stats.put("pendingUsers", pending.size());
+        stats.put("submitted", submitted.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("flushes", flushes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+
+    private void restore(User user, Map<Long, Integer> drained) {
+        if (!isEnabled()) {
+            logger.warn("Dropped {} pending cart quantities for user {} after rollback during shutdown",
+                    drained.size(), user.getId());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        pending.compute(user.getId(), (userId, writes) -> {
+            if (writes == null) {
+                writes = new PendingWrites(user, now);
+            }
+            synchronized (writes) {
+                // Changes submitted since the drain are newer and win
+                drained.forEach(writes.quantities::putIfAbsent);
+                scheduleFlush(userId, writes, now);
+            }
+            return writes;
+        });
+    }
+
+    // Caller holds the writes' monitor
+    private void scheduleFlush(Long userId, PendingWrites writes, long now) {
+        if (writes.flushTask != null) {
+            writes.flushTask.cancel(false);
+        }
+        long delay = Math.max(0, Math.min(windowMs, writes.firstAt + maxDelayMs - now));
+        writes.flushTask = scheduler.schedule(() -> flush(userId), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush(Long userId) {
+        PendingWrites writes = pending.get(userId);
+        if (writes == null) {
+            return;
+        }
+        try {
+            cartService.getObject().flushPendingQuantities(writes.user);
+            flushes.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            logger.warn("Could not flush pending cart quantities for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private static final class PendingWrites {
+        private final User user;
+        private final long firstAt;
+        private final LinkedHashMap<Long, Integer> quantities = new LinkedHashMap<>();
+        private ScheduledFuture<?> flushTask;
+
+        private PendingWrites(User user, long firstAt) {
+            this.user = user;
+            this.firstAt = firstAt;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.handPick.service;
+
+import com.example.handPick.exception.CheckoutRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many checkouts run at once. Requests beyond the limit wait in a bounded FIFO queue;
+ * when the queue is full, or a request waits too long, it is rejected with its queue position so the
+ * client can retry later. Each user may hold only one running or queued checkout, so a single
+ * client retrying aggressively cannot crowd others out of the queue.
+ */
+@Service
+public class CheckoutAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutAdmissionService.class);
+
+    @Value("${app.checkout.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.checkout.admission.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${app.checkout.admission.max-queue:50}")
+    private int maxQueue;
+
+    @Value("${app.checkout.admission.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final ArrayDeque<Long> queue = new ArrayDeque<>();
+    private final Set<Long> activeUsers = new HashSet<>();
+    private int running;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedDuplicate = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong maxObservedWaitMs = new AtomicLong();
+
+    /**
+     * Waits for a checkout slot. Close the returned admission when the checkout finishes.
+     * @throws CheckoutRejectedException if the user already has a checkout pending, the queue is full,
+     *                                   or no slot freed up within the configured wait.
+     */
+    public Admission admit(long userId) {
+        if (!enabled) {
+            return () -> { };
+        }
+        long startNanos = System.nanoTime();
+        lock.lock();
+        try {
+            if (activeUsers.contains(userId)) {
+                rejectedDuplicate.incrementAndGet();
+                throw new CheckoutRejectedException("A checkout for this account is already in progress.", 0, 1);
+            }
+            if (running < maxConcurrent && queue.isEmpty()) {
+                return grant(userId, startNanos);
+            }
+            if (queue.size() >= maxQueue) {
+                rejectedQueueFull.incrementAndGet();
+                throw new CheckoutRejectedException("Checkout is busy, please retry shortly.",
+                        queue.size() + 1, retryAfterSeconds(queue.size() + 1));
+            }
+
+            queue.addLast(userId);
+            activeUsers.add(userId);
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            while (queue.peekFirst() != userId || running >= maxConcurrent) {
+                if (remainingNanos <= 0) {
+                    int position = positionOf(userId);
+                    queue.remove(userId);
+                    activeUsers.remove(userId);
+                    slotFreed.signalAll();
+                    timedOut.incrementAndGet();
+                    throw new CheckoutRejectedException("Checkout is busy, please retry shortly.",
+                            position, retryAfterSeconds(position));
+                }
+                remainingNanos = slotFreed.awaitNanos(remainingNanos);
+            }
+            queue.removeFirst();
+            activeUsers.remove(userId);
+            // Wake the next waiter in case more than one slot is free
+            slotFreed.signalAll();
+            return grant(userId, startNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(userId);
+            activeUsers.remove(userId);
+            slotFreed.signalAll();
+            throw new CheckoutRejectedException("Checkout was interrupted, please retry.", 0, 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue depth, concurrency and wait-time figures for the admin dashboard.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("maxConcurrent", maxConcurrent);
+            stats.put("maxQueue", maxQueue);
+            stats.put("running", running);
+            stats.put("queued", queue.size());
+        } finally {
+            lock.unlock();
+        }
+        long admittedCount = admitted.get();
+        stats.put("admitted", admittedCount);
+        stats.put("rejectedQueueFull", rejectedQueueFull.get());
+        stats.put("rejectedDuplicate", rejectedDuplicate.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("averageWaitMs", admittedCount > 0 ? totalWaitMs.get() / admittedCount : 0);
+        stats.put("maxWaitMs", maxObservedWaitMs.get());
+        return stats;
+    }
+
+    // Caller holds the lock
+    private Admission grant(long userId, long startNanos) {
+        running++;
+        activeUsers.add(userId);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        admitted.incrementAndGet();
+        totalWaitMs.addAndGet(waitedMs);
+        maxObservedWaitMs.accumulateAndGet(waitedMs, Math::max);
+        if (waitedMs > 1000) {
+            logger.debug("Checkout for user {} admitted after waiting {} ms", userId, waitedMs);
+        }
+        return new Admission() {
+            private boolean released;
+
+            @Override
+            public void close() {
+                lock.lock();
+                try {
+                    if (!released) {
+                        released = true;
+                        running--;
+                        activeUsers.remove(userId);
+                        slotFreed.signalAll();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+
+    // Caller holds the lock; 1-based
+    private int positionOf(long userId) {
+        int position = 1;
+        Iterator<Long> it = queue.iterator();
+        while (it.hasNext()) {
+            if (it.next() == userId) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    // Rough estimate: the queue drains maxConcurrent checkouts at a time, about a second each
+    private long retryAfterSeconds(int position) {
+        return Math.max(1, (position + maxConcurrent - 1) / maxConcurrent);
+    }
+
+    /**
+     * A held checkout slot.
+     */
+    public interface Admission extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.CheckoutRequest;
+import com.example.handPick.exception.CheckoutRejectedException;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional group-commit path for checkout. Requests are queued and a single writer thread drains
+ * up to max-batch of them (waiting at most max-wait-ms for the batch to fill), checks stock for the
+ * whole batch in memory under one set of row locks, and places every order in one transaction.
+ * Each request is prechecked on its own first, so a bad address, an emptied cart or a line that
+ * no longer fits the stock fails only that request, as does running out of the batch's stock.
+ * If the batch transaction still fails, its requests are retried one checkout at a time.
+ */
+@Service
+public class CheckoutBatchPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutBatchPipeline.class);
+
+    private final CartService cartService;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final TransactionTemplate batchTransaction;
+    private final BlockingQueue<PendingCheckout> queue = new LinkedBlockingQueue<>();
+
+    @Value("${app.checkout.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.checkout.group-commit.max-batch:32}")
+    private int maxBatch;
+
+    @Value("${app.checkout.group-commit.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${app.checkout.group-commit.response-timeout-ms:30000}")
+    private long responseTimeoutMs;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong placedOrders = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong withdrawnRequests = new AtomicLong();
+    private final AtomicLong fallbackBatches = new AtomicLong();
+
+    @Autowired
+    public CheckoutBatchPipeline(CartService cartService,
+                                 ProductRepository productRepository,
+                                 ProductService productService,
+                                 PlatformTransactionManager transactionManager) {
+        this.cartService = cartService;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "checkout-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Checkout group commit enabled (max batch {}, max wait {} ms)", maxBatch, maxWaitMs);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        PendingCheckout left;
+        while ((left = queue.poll()) != null) {
+            left.claim();
+            left.result.completeExceptionally(new RuntimeException("Checkout service is shutting down, please retry."));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled && running;
+    }
+
+    /**
+     * Queues a checkout and waits for the batch containing it to commit.
+     * Failures are rethrown as the same exceptions {@link CartService#checkoutCart} would throw.
+     * @throws CheckoutRejectedException if the writer did not take the request up within
+     *                                   response-timeout-ms; it is withdrawn, so nothing was placed.
+     */
+    public Order checkout(User user, CheckoutRequest request) {
+        PendingCheckout pending = new PendingCheckout(user, request, new CompletableFuture<>(), new AtomicBoolean());
+        queue.add(pending);
+        try {
+            try {
+                return pending.result.get(responseTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.claim()) {
+                    withdrawnRequests.incrementAndGet();
+                    throw new CheckoutRejectedException("Checkout is busy, please retry shortly.", 0, 1);
+                }
+                // Already in a batch: report how that batch ends rather than leave the outcome unknown
+                return pending.result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Checkout failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Checkout was interrupted", e);
+        }
+    }
+
+    /**
+     * Batch and outcome counters for the admin dashboard.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("maxBatch", maxBatch);
+        stats.put("maxWaitMs", maxWaitMs);
+        stats.put("queued", queue.size());
+        stats.put("batches", batches.get());
+        stats.put("placed", placedOrders.get());
+        stats.put("rejected", rejectedRequests.get());
+        stats.put("withdrawn", withdrawnRequests.get());
+        stats.put("fallbackBatches", fallbackBatches.get());
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<PendingCheckout> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                PendingCheckout first = queue.take();
+                if (!first.claim()) {
+                    continue; // Withdrawn by a caller that gave up waiting
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < maxBatch) {
+                    PendingCheckout next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.claim()) {
+                        batch.add(next);
+                    }
+                }
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.result.completeExceptionally(
+                        new RuntimeException("Checkout service is shutting down, please retry.")));
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in checkout group commit", e);
+                batch.forEach(p -> p.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<PendingCheckout> batch) {
+        batches.incrementAndGet();
+        Map<PendingCheckout, Order> placed = new IdentityHashMap<>();
+        Map<PendingCheckout, RuntimeException> rejected = new IdentityHashMap<>();
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                placed.clear();
+                rejected.clear();
+                List<PendingCheckout> accepted = preflight(batch, rejected);
+                for (PendingCheckout pending : accepted) {
+                    placed.put(pending, cartService.checkoutCart(pending.user, pending.request));
+                }
+            });
+        } catch (RuntimeException e) {
+            // Coalesced quantities drained by the batch are queued again by the rollback
+            fallbackBatches.incrementAndGet();
+            logger.warn("Checkout batch of {} failed ({}); falling back to individual checkouts", batch.size(), e.getMessage());
+            checkoutIndividually(batch);
+            return;
+        }
+        for (PendingCheckout pending : batch) {
+            if (placed.containsKey(pending)) {
+                pending.result.complete(placed.get(pending));
+            } else {
+                pending.result.completeExceptionally(rejected.get(pending));
+            }
+        }
+        placedOrders.addAndGet(placed.size());
+        rejectedRequests.addAndGet(rejected.size());
+        logger.debug("Checkout batch committed: {} placed, {} rejected", placed.size(), rejected.size());
+    }
+
+    /**
+     * Prechecks each request on its own, then locks every product the accepted requests touch
+     * (ascending ID) and admits them in arrival order while stock lasts. A request that fails its
+     * precheck, repeats a user already in the batch, or finds too little stock is rejected alone.
+     */
+    private List<PendingCheckout> preflight(List<PendingCheckout> batch, Map<PendingCheckout, RuntimeException> rejected) {
+        Map<PendingCheckout, Map<Long, Integer>> demand = new IdentityHashMap<>();
+        TreeSet<Long> productIds = new TreeSet<>();
+        Set<Long> userIds = new HashSet<>();
+        List<PendingCheckout> accepted = new ArrayList<>();
+        for (PendingCheckout pending : batch) {
+            if (!userIds.add(pending.user.getId())) {
+                rejected.put(pending, new CheckoutRejectedException(
+                        "A checkout for this account is already in progress.", 0, 1));
+                continue;
+            }
+            try {
+                // Quantity changes still being coalesced belong to the cart the stock is checked against
+                cartService.flushPendingQuantities(pending.user);
+                Map<Long, Integer> quantities = cartService.precheckCheckout(pending.user, pending.request);
+                demand.put(pending, quantities);
+                productIds.addAll(quantities.keySet());
+            } catch (RuntimeException e) {
+                rejected.put(pending, e);
+            }
+        }
+        if (productIds.isEmpty()) {
+            return accepted;
+        }
+
+        Map<Long, Integer> remaining = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (Product product : productRepository.findAllByIdForUpdate(productIds)) {
+            remaining.put(product.getId(), productService.getStockQuantity(product));
+            names.put(product.getId(), product.getName());
+        }
+
+        for (PendingCheckout pending : batch) {
+            Map<Long, Integer> quantities = demand.get(pending);
+            if (quantities == null) {
+                continue;
+            }
+            String shortage = null;
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                int available = remaining.getOrDefault(entry.getKey(), 0);
+                if (available < entry.getValue()) {
+                    shortage = "Insufficient stock for product: " + names.getOrDefault(entry.getKey(), "#" + entry.getKey())
+                            + ". Available: " + available + ", Requested: " + entry.getValue();
+                    break;
+                }
+            }
+            if (shortage != null) {
+                rejected.put(pending, new IllegalArgumentException(shortage));
+                continue;
+            }
+            quantities.forEach((productId, quantity) -> remaining.merge(productId, -quantity, Integer::sum));
+            accepted.add(pending);
+        }
+        return accepted;
+    }
+
+    private void checkoutIndividually(List<PendingCheckout> batch) {
+        for (PendingCheckout pending : batch) {
+            try {
+                pending.result.complete(cartService.checkoutCart(pending.user, pending.request));
+            } catch (RuntimeException e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Keyed by identity in the batch maps: User and CheckoutRequest have value-based equals.
+    // Claimed once, either by the writer taking it into a batch or by its caller withdrawing it.
+    private record PendingCheckout(User user, CheckoutRequest request, CompletableFuture<Order> result,
+                                   AtomicBoolean taken) {
+        boolean claim() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.handPick.service;
+
+import com.example.handPick.config.JwtUtil;
+import com.example.handPick.model.ShippingAddress;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signed, short-lived checkout quotes. A quote records the totals and shipping address computed
+ * for one revision of a user's cart; checkout can use them as they are while the cart is unchanged.
+ * Quotes are JWTs signed with the application key, so they cannot be altered by the client.
+ */
+@Service
+public class CheckoutQuoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutQuoteService.class);
+
+    private static final String TOKEN_TYPE = "cart-quote";
+
+    private final JwtUtil jwtUtil;
+
+    @Value("${app.checkout.quote.ttl-ms:600000}")
+    private long ttlMs;
+
+    public record Quote(Long userId, Long cartId, long revision,
+                        BigDecimal subtotal, BigDecimal gstAmount, BigDecimal totalAmount,
+                        ShippingAddress shippingAddress) {}
+
+    @Autowired
+    public CheckoutQuoteService(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    /**
+     * Signs a quote; valid for the configured time to live.
+     */
+    public String issue(Quote quote) {
+        Map<String, Object> address = new HashMap<>();
+        address.put("street", quote.shippingAddress().getStreet());
+        address.put("city", quote.shippingAddress().getCity());
+        address.put("state", quote.shippingAddress().getState());
+        address.put("postalCode", quote.shippingAddress().getPostalCode());
+        address.put("country", quote.shippingAddress().getCountry());
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("typ", TOKEN_TYPE);
+        claims.put("userId", quote.userId());
+        claims.put("cartId", quote.cartId());
+        claims.put("rev", quote.revision());
+        claims.put("subtotal", quote.subtotal().toPlainString());
+        claims.put("gst", quote.gstAmount().toPlainString());
+        claims.put("total", quote.totalAmount().toPlainString());
+        claims.put("addr", address);
+        // The subject is not a mobile number, so a quote can never pass as an access token
+        return jwtUtil.generateSignedToken(claims, TOKEN_TYPE + ":" + quote.userId(), ttlMs);
+    }
+
+    /**
+     * Reads a quote issued to the given user. Empty if the token is invalid, expired,
+     * not a quote, or belongs to someone else.
+     */
+    public Optional<Quote> verify(String token, Long userId) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            Claims claims = jwtUtil.parseSignedToken(token);
+            if (!TOKEN_TYPE.equals(claims.get("typ", String.class))
+                    || !userId.equals(claims.get("userId", Long.class))) {
+                return Optional.empty();
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> address = claims.get("addr", Map.class);
+            ShippingAddress shippingAddress = new ShippingAddress();
+            shippingAddress.setStreet((String) address.get("street"));
+            shippingAddress.setCity((String) address.get("city"));
+            shippingAddress.setState((String) address.get("state"));
+            shippingAddress.setPostalCode((String) address.get("postalCode"));
+            shippingAddress.setCountry((String) address.get("country"));
+            return Optional.of(new Quote(
+                    userId,
+                    claims.get("cartId", Long.class),
+                    claims.get("rev", Long.class),
+                    new BigDecimal(claims.get("subtotal", String.class)),
+                    new BigDecimal(claims.get("gst", String.class)),
+                    new BigDecimal(claims.get("total", String.class)),
+                    shippingAddress));
+        } catch (JwtException | IllegalArgumentException | ClassCastException e) {
+            logger.debug("Ignoring unusable checkout quote for user {}: {}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Cart;
+import com.example.handPick.model.ShippingAddress;
+import com.example.handPick.model.User;
+import com.example.handPick.model.UserAddress;
+import com.example.handPick.repository.CartRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads everything checkout needs before it writes (the user, the active cart with its items and
+ * their products, and the default address) in a single query, so the number of reads does not grow
+ * with the number of lines. The returned entities are managed by the caller's transaction.
+ */
+@Service
+public class CheckoutSnapshotLoader {
+
+    private final CartRepository cartRepository;
+
+    /**
+     * The user's active cart as read at the start of checkout. The default address is copied
+     * into a shipping address and is null if the user has none.
+     */
+    public record CheckoutSnapshot(User user, Cart cart, ShippingAddress defaultAddress) {
+
+        public Optional<ShippingAddress> findDefaultAddress() {
+            return Optional.ofNullable(defaultAddress);
+        }
+    }
+
+    @Autowired
+    public CheckoutSnapshotLoader(CartRepository cartRepository) {
+        this.cartRepository = cartRepository;
+    }
+
+    /**
+     * Loads the snapshot for the user's ACTIVE cart, or empty if the user has no active cart.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CheckoutSnapshot> load(Long userId) {
+        List<Object[]> rows = cartRepository.findCheckoutRows(userId, Cart.CartStatus.ACTIVE);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        // Every row carries the same cart; a second default address (should not happen) is ignored
+        Object[] first = rows.get(0);
+        Cart cart = (Cart) first[0];
+        UserAddress address = (UserAddress) first[1];
+        return Optional.of(new CheckoutSnapshot(cart.getUser(), cart, toShippingAddress(address)));
+    }
+
+    private static ShippingAddress toShippingAddress(UserAddress address) {
+        if (address == null) {
+            return null;
+        }
+        ShippingAddress shippingAddress = new ShippingAddress();
+        shippingAddress.setStreet(address.getStreet());
+        shippingAddress.setCity(address.getCity());
+        shippingAddress.setState(address.getState());
+        shippingAddress.setPostalCode(address.getPostalCode());
+        shippingAddress.setCountry(address.getCountry());
+        return shippingAddress;
+    }
+}
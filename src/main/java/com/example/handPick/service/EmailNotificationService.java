@@ -26,27 +26,33 @@ public class EmailNotificationService {
      * Send email notification to admin (optional - requires Gmail setup)
      */
     public void sendAdminNotification(String subject, String message) {
+        try {
+            deliverAdminNotification(subject, message);
+        } catch (Exception e) {
+            logger.error("Failed to send email notification", e);
+        }
+    }
+    
+    /**
+     * Send email notification to admin, letting delivery failures propagate so the caller can retry
+     */
+    public void deliverAdminNotification(String subject, String message) {
         if (!emailEnabled || adminEmail.isEmpty()) {
             logger.info("Email notifications disabled or admin email not configured");
             return;
         }
         
-        try {
-            SimpleMailMessage mailMessage = new SimpleMailMessage();
-            mailMessage.setTo(adminEmail);
-            mailMessage.setSubject(subject);
-            mailMessage.setText(message);
-            
-            mailSender.send(mailMessage);
-            logger.info("Email notification sent to admin: {}", subject);
-            
-        } catch (Exception e) {
-            logger.error("Failed to send email notification", e);
-        }
+        SimpleMailMessage mailMessage = new SimpleMailMessage();
+        mailMessage.setTo(adminEmail);
+        mailMessage.setSubject(subject);
+        mailMessage.setText(message);
+        
+        mailSender.send(mailMessage);
+        logger.info("Email notification sent to admin: {}", subject);
     }
     
     /**
-     * Send new order notification via email
+     * Send new order notification via email (throws on delivery failure)
      */
     public void sendNewOrderEmail(String customerName, String customerMobile, 
                                  Long orderId, String totalAmount, String paymentMethod) {
@@ -61,11 +67,11 @@ public class EmailNotificationService {
             orderId, customerName, customerMobile, totalAmount, paymentMethod
         );
         
-        sendAdminNotification(subject, message);
+        deliverAdminNotification(subject, message);
     }
     
     /**
-     * Send order cancellation notification via email
+     * Send order cancellation notification via email (throws on delivery failure)
      */
     public void sendOrderCancellationEmail(String customerName, String customerMobile,
                                           Long orderId, String totalAmount, String reason) {
@@ -81,6 +87,6 @@ public class EmailNotificationService {
             reason != null ? reason : "No reason provided"
         );
         
-        sendAdminNotification(subject, message);
+        deliverAdminNotification(subject, message);
     }
 } 
\ No newline at end of file
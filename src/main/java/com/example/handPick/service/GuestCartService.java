@@ -0,0 +1,306 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.AddToCartRequest;
+import com.example.handPick.dto.CartDto;
+import com.example.handPick.dto.CartItemDto;
+import com.example.handPick.model.Product;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Carts of anonymous visitors, held only in memory and keyed by a guest ID the client keeps.
+ * The store is bounded by cart count (least recently used carts are evicted first) and by idle
+ * time, so browsing without an account never writes to the database. Prices and stock are read
+ * live from the catalog; nothing is reserved until the lines are merged into a user's cart on login.
+ */
+@Service
+public class GuestCartService {
+
+    public static final String HEADER = "Guest-Cart-Id";
+
+    private static final Logger logger = LoggerFactory.getLogger(GuestCartService.class);
+
+    private final ProductService productService;
+
+    @Value("${app.gst.rate:0.18}")
+    private double gstRate;
+
+    @Value("${app.cart.guest.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${app.cart.guest.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${app.cart.guest.max-lines:50}")
+    private int maxLines;
+
+    private BoundedTtlCache<UUID, GuestCart> carts;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+
+    /**
+     * One line of a guest cart.
+     */
+    public record Line(Long productId, String size, int quantity) {}
+
+    @Autowired
+    public GuestCartService(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @PostConstruct
+    void initStore() {
+        carts = new BoundedTtlCache<>(maxCarts, ttlMs);
+    }
+
+    /**
+     * The guest's cart, or an empty one if the ID is unknown or has expired.
+     */
+    public CartDto getCart(UUID guestId) {
+        GuestCart cart = guestId != null ? carts.get(guestId) : null;
+        if (cart == null) {
+            return convertToDto(List.of());
+        }
+        touch(guestId, cart);
+        return convertToDto(cart.snapshot());
+    }
+
+    /**
+     * Adds an item to the guest's cart, creating the cart on first use.
+     * Stock is checked against what is currently available but not reserved.
+     */
+    public CartDto addItem(UUID guestId, AddToCartRequest request) {
+        if (guestId == null) {
+            throw new IllegalArgumentException("A guest cart ID is required.");
+        }
+        if (request.getProductId() == null || request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Invalid product ID or quantity.");
+        }
+        Product product = productService.getProductEntityById(request.getProductId())
+                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + request.getProductId()));
+
+        GuestCart cart;
+        synchronized (this) {
+            cart = carts.get(guestId);
+            if (cart == null) {
+                cart = new GuestCart();
+                carts.put(guestId, cart);
+                created.incrementAndGet();
+            }
+        }
+        synchronized (cart) {
+            String key = GuestCart.key(product.getId(), request.getSize());
+            Line existing = cart.lines.get(key);
+            if (existing == null && cart.lines.size() >= maxLines) {
+                throw new IllegalArgumentException("Guest cart cannot hold more than " + maxLines + " lines.");
+            }
+            int totalRequested = cart.quantityOf(product.getId()) + request.getQuantity();
+            checkStock(product.getId(), totalRequested);
+            int newQty = (existing != null ? existing.quantity() : 0) + request.getQuantity();
+            cart.lines.put(key, new Line(product.getId(), request.getSize(), newQty));
+        }
+        touch(guestId, cart);
+        return convertToDto(cart.snapshot());
+    }
+
+    /**
+     * Sets the quantity of a line in the guest's cart; 0 or less removes it. The size picks the line
+     * and may be omitted only while the product has a single line in the cart.
+     */
+    public CartDto updateItemQuantity(UUID guestId, Long productId, String size, int quantity) {
+        GuestCart cart = requireCart(guestId);
+        synchronized (cart) {
+            String key = cart.keyOf(productId, size);
+            if (key == null) {
+                throw new IllegalArgumentException("Cart item not found: " + productId);
+            }
+            Line line = cart.lines.get(key);
+            if (quantity <= 0) {
+                cart.lines.remove(key);
+            } else {
+                checkStock(productId, cart.quantityOf(productId) - line.quantity() + quantity);
+                cart.lines.put(key, new Line(productId, line.size(), quantity));
+            }
+        }
+        touch(guestId, cart);
+        return convertToDto(cart.snapshot());
+    }
+
+    /**
+     * Removes a product's line from the guest's cart, chosen by size as in {@link #updateItemQuantity}.
+     */
+    public CartDto removeItem(UUID guestId, Long productId, String size) {
+        GuestCart cart = requireCart(guestId);
+        synchronized (cart) {
+            String key = cart.keyOf(productId, size);
+            if (key == null) {
+                throw new IllegalArgumentException("Product not in cart: " + productId);
+            }
+            cart.lines.remove(key);
+        }
+        touch(guestId, cart);
+        return convertToDto(cart.snapshot());
+    }
+
+    /**
+     * Removes the guest's cart and returns its lines for merging into a user's cart.
+     * If called inside a transaction that then rolls back, the cart is put back.
+     */
+    public List<Line> takeForMerge(UUID guestId) {
+        GuestCart cart = guestId != null ? carts.remove(guestId) : null;
+        if (cart == null) {
+            return List.of();
+        }
+        List<Line> lines = cart.snapshot();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        merged.incrementAndGet();
+                    } else {
+                        carts.put(guestId, cart);
+                    }
+                }
+            });
+        } else {
+            merged.incrementAndGet();
+        }
+        return lines;
+    }
+
+    /**
+     * Drops guest carts whose idle time has run out.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.guest.sweep-interval-ms:300000}",
+            initialDelayString = "${app.cart.guest.sweep-interval-ms:300000}")
+    public void evictExpired() {
+        int removed = carts.evictExpired();
+        if (removed > 0) {
+            logger.debug("Dropped {} expired guest cart(s)", removed);
+        }
+    }
+
+    /**
+     * Store size, limits and eviction counts for the admin dashboard.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("carts", carts.size());
+        stats.put("maxCarts", carts.getMaxSize());
+        stats.put("maxLinesPerCart", maxLines);
+        stats.put("ttlMs", ttlMs);
+        stats.put("created", created.get());
+        stats.put("merged", merged.get());
+        stats.put("evictedForSpace", carts.getEvictionCount());
+        stats.put("expired", carts.getExpirationCount());
+        return stats;
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private GuestCart requireCart(UUID guestId) {
+        GuestCart cart = guestId != null ? carts.get(guestId) : null;
+        if (cart == null) {
+            throw new IllegalArgumentException("Guest cart not found.");
+        }
+        return cart;
+    }
+
+    // Re-inserting restarts the idle timer and marks the cart as recently used
+    private void touch(UUID guestId, GuestCart cart) {
+        carts.put(guestId, cart);
+    }
+
+    private void checkStock(Long productId, int totalRequested) {
+        int availableStock = productService.getAvailableStock(productId);
+        if (availableStock < totalRequested) {
+            throw new IllegalArgumentException(
+                    "Insufficient stock. Available: " + availableStock + ", requested: " + totalRequested);
+        }
+    }
+
+    private CartDto convertToDto(List<Line> lines) {
+        Map<Long, Product> products = lines.isEmpty()
+                ? Map.of()
+                : productService.getProductEntitiesByIds(lines.stream()
+                        .map(Line::productId)
+                        .collect(Collectors.toSet()));
+
+        List<CartItemDto> items = new ArrayList<>(lines.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int totalItems = 0;
+        for (Line line : lines) {
+            Product product = products.get(line.productId());
+            if (product == null) {
+                continue; // Removed from the catalog since it was added
+            }
+            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(line.quantity()));
+            items.add(new CartItemDto(null, product.getId(), product.getName(), product.getPrice(),
+                    line.quantity(), lineTotal, product.getImageUrl(), line.size()));
+            subtotal = subtotal.add(lineTotal);
+            totalItems += line.quantity();
+        }
+        subtotal = subtotal.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal gstAmount = subtotal.multiply(BigDecimal.valueOf(gstRate)).setScale(2, RoundingMode.HALF_UP);
+        return new CartDto(null, items, subtotal, gstAmount, subtotal.add(gstAmount), totalItems, null, "GUEST");
+    }
+
+    /**
+     * Lines keyed by product ID and size, in the order they were first added.
+     */
+    private static final class GuestCart {
+        private final LinkedHashMap<String, Line> lines = new LinkedHashMap<>();
+
+        static String key(Long productId, String size) {
+            return productId + "|" + Objects.toString(size, "");
+        }
+
+        int quantityOf(Long productId) {
+            return lines.values().stream()
+                    .filter(l -> l.productId().equals(productId))
+                    .mapToInt(Line::quantity)
+                    .sum();
+        }
+
+        // Without a size the product must have exactly one line; guessing would edit the wrong size
+        String keyOf(Long productId, String size) {
+            if (size != null) {
+                String key = key(productId, size);
+                return lines.containsKey(key) ? key : null;
+            }
+            List<String> keys = lines.entrySet().stream()
+                    .filter(e -> e.getValue().productId().equals(productId))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (keys.size() > 1) {
+                throw new IllegalArgumentException(
+                        "Product " + productId + " is in the cart in " + keys.size() + " sizes; specify the size.");
+            }
+            return keys.isEmpty() ? null : keys.get(0);
+        }
+
+        synchronized List<Line> snapshot() {
+            return new ArrayList<>(lines.values());
+        }
+    }
+}
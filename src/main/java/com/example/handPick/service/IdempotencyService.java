@@ -0,0 +1,293 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.IdempotencyRecord;
+import com.example.handPick.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes POST endpoints safe to retry. A response produced for an Idempotency-Key is kept in a
+ * bounded in-memory cache and in the idempotency_keys table; a retry with the same key replays it
+ * instead of running the request again. Before a request runs, its key is claimed with an
+ * IN_PROGRESS row, so a duplicate that reaches another instance waits for the first execution
+ * rather than running it a second time; duplicates on the same instance wait without polling.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate recordTransaction;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${app.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.idempotency.in-progress-ttl-ms:120000}")
+    private long inProgressTtlMs;
+
+    @Value("${app.idempotency.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    private BoundedTtlCache<String, StoredResponse> cache;
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.recordTransaction = new TransactionTemplate(transactionManager);
+        this.recordTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void initCache() {
+        cache = new BoundedTtlCache<>(cacheSize, TimeUnit.HOURS.toMillis(ttlHours));
+    }
+
+    /**
+     * Runs the action once per (user, endpoint, key) and replays its response for retries.
+     * Without a key the action simply runs. Reusing a key with a different request body
+     * returns 422; 5xx and 429 responses are not stored, so the client may retry them with the same key.
+     * A duplicate that finds the key claimed elsewhere gets the stored response once it is there, or 409
+     * if the first attempt fails or is still running after the wait timeout.
+     */
+    public <T> ResponseEntity<T> execute(Long userId, String endpoint, String idempotencyKey,
+                                         Object request, Class<T> responseType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        String recordKey = userId + ":" + endpoint + ":" + idempotencyKey.trim();
+        if (recordKey.length() > 255) {
+            recordKey = userId + ":" + endpoint + ":" + sha256(idempotencyKey.trim());
+        }
+        String requestHash = sha256(toJson(request));
+
+        StoredResponse stored = findStored(recordKey);
+        if (stored != null) {
+            return replay(stored, requestHash, responseType);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = inFlight.putIfAbsent(recordKey, mine);
+        if (existing != null) {
+            return awaitAndReplay(existing, recordKey, requestHash, responseType);
+        }
+
+        try {
+            if (!claim(recordKey, userId, endpoint, requestHash)) {
+                // Another instance owns the key, or the first execution has just finished
+                stored = awaitOwner(recordKey);
+                if (stored == null) {
+                    mine.completeExceptionally(new IllegalStateException("Idempotency key " + recordKey + " not completed"));
+                    return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                }
+                mine.complete(stored);
+                return replay(stored, requestHash, responseType);
+            }
+
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                release(recordKey);
+                throw e;
+            }
+            StoredResponse result = new StoredResponse(requestHash, response.getStatusCode().value(), toJson(response.getBody()));
+            if (!response.getStatusCode().is5xxServerError() && response.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                complete(recordKey, result);
+            } else {
+                release(recordKey);
+            }
+            mine.complete(result);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(recordKey, mine);
+        }
+    }
+
+    /**
+     * Removes expired keys from the table and the in-memory cache.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${app.idempotency.purge-initial-delay-ms:300000}")
+    public void purgeExpired() {
+        cache.evictExpired();
+        Integer removed = recordTransaction.execute(status -> recordRepository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            logger.info("Purged {} expired idempotency key(s)", removed);
+        }
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    // A completed response from the cache or the table; null if there is none yet
+    private StoredResponse findStored(String recordKey) {
+        StoredResponse stored = cache.get(recordKey);
+        if (stored != null) {
+            return stored;
+        }
+        return recordRepository.findValid(recordKey, LocalDateTime.now())
+                .filter(record -> !record.isInProgress())
+                .map(record -> {
+                    StoredResponse fromDb = new StoredResponse(record.getRequestHash(), record.getStatusCode(), record.getResponseBody());
+                    cache.put(recordKey, fromDb);
+                    return fromDb;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Inserts the key's IN_PROGRESS row in its own transaction. False if another row holds the key.
+     * An IN_PROGRESS row outlives its instance only until in-progress-ttl-ms, so a key whose owner
+     * died mid-request can be claimed again.
+     */
+    private boolean claim(String recordKey, Long userId, String endpoint, String requestHash) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                recordTransaction.executeWithoutResult(status -> recordRepository.insertInProgress(recordKey, userId,
+                        endpoint, requestHash, now, now.plus(Duration.ofMillis(inProgressTtlMs))));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                Integer removed = recordTransaction.execute(status -> recordRepository.deleteIfExpired(recordKey, now));
+                if (removed == null || removed == 0) {
+                    return false;
+                }
+                logger.debug("Reclaiming expired idempotency key {}", recordKey);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Polls the key's row until its owner completes it. Null if the row goes away (the owner's request
+     * failed, so the client may retry) or is still IN_PROGRESS when the wait times out.
+     */
+    private StoredResponse awaitOwner(String recordKey) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        while (true) {
+            StoredResponse stored = findStored(recordKey);
+            if (stored != null) {
+                return stored;
+            }
+            if (recordRepository.findValid(recordKey, LocalDateTime.now()).isEmpty()
+                    || System.currentTimeMillis() >= deadline) {
+                logger.warn("Duplicate request for idempotency key {} found no completed response", recordKey);
+                return null;
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private void complete(String recordKey, StoredResponse result) {
+        cache.put(recordKey, result);
+        Integer updated = recordTransaction.execute(status -> recordRepository.complete(recordKey,
+                result.statusCode(), result.body(), LocalDateTime.now().plusHours(ttlHours),
+                IdempotencyRecord.State.IN_PROGRESS, IdempotencyRecord.State.COMPLETED));
+        if (updated == null || updated == 0) {
+            logger.warn("Idempotency key {} was no longer claimed when its request completed", recordKey);
+        }
+    }
+
+    // Frees the key so the client can retry; if this fails the claim lapses after in-progress-ttl-ms
+    private void release(String recordKey) {
+        try {
+            recordTransaction.executeWithoutResult(status ->
+                    recordRepository.deleteByRecordKeyAndState(recordKey, IdempotencyRecord.State.IN_PROGRESS));
+        } catch (RuntimeException e) {
+            logger.warn("Could not release idempotency key {}: {}", recordKey, e.getMessage());
+        }
+    }
+
+    private <T> ResponseEntity<T> awaitAndReplay(CompletableFuture<StoredResponse> first, String recordKey,
+                                                 String requestHash, Class<T> responseType) {
+        try {
+            return replay(first.get(waitTimeoutMs, TimeUnit.MILLISECONDS), requestHash, responseType);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Duplicate request for idempotency key {} could not be replayed: {}", recordKey, e.toString());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), responseType) : null;
+            return ResponseEntity.status(stored.statusCode()).header(REPLAYED_HEADER, "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize idempotent request/response", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, int statusCode, String body) {}
+}
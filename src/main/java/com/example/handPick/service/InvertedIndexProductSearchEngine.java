@@ -0,0 +1,615 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Product;
+import com.example.handPick.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name, category and description, ranked with BM25.
+ * Text is lower-cased and split into words on anything that is not a letter or digit; a word in
+ * the name counts three times, in the category twice and in the description once. The index is
+ * loaded at startup, updated after each committed product change, and rebuilt periodically to pick
+ * up changes made outside the application. Searches run under a read lock, updates under a write lock.
+ * For fuzzy searches the dictionary is also indexed by character trigram, so words within one or two
+ * edits of a misspelt query word are found without comparing it to every word.
+ */
+@Service
+public class InvertedIndexProductSearchEngine implements ProductSearchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvertedIndexProductSearchEngine.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // A word the last query word is only a prefix of scores at most half as much as the exact word
+    private static final double PREFIX_MATCH_FACTOR = 0.5;
+    // Each edit between a query word and a dictionary word halves the match's score again
+    private static final double TYPO_MATCH_FACTOR = 0.5;
+
+    private final ProductRepository productRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.index.max-prefix-expansions:50}")
+    private int maxPrefixExpansions;
+
+    @Value("${app.search.index.fuzzy.max-edits:2}")
+    private int maxTypos;
+
+    @Value("${app.search.index.fuzzy.max-expansions:20}")
+    private int maxTypoExpansions;
+
+    @Value("${app.search.index.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    // Guarded by lock
+    private Index index = new Index();
+    // Updates committed while a rebuild is reading the database, replayed onto the new index; guarded by lock
+    private List<Consumer<Index>> replay;
+    private volatile boolean ready = false;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+    private final AtomicLong fuzzyQueries = new AtomicLong();
+    private final AtomicLong fuzzyQueryNanos = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private volatile long lastRebuildMs;
+    private volatile LocalDateTime lastRebuildAt;
+
+    @Autowired
+    public InvertedIndexProductSearchEngine(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @Override
+    public List<Long> search(String query) {
+        return search(query, 0, queries, queryNanos);
+    }
+
+    @Override
+    public List<Long> searchFuzzy(String query) {
+        return search(query, maxTypos, fuzzyQueries, fuzzyQueryNanos);
+    }
+
+    @Override
+    public void indexAfterCommit(Product product) {
+        if (!enabled) {
+            return;
+        }
+        // Copy the text now; the entity may be detached or changed by the time the transaction commits
+        Document document = new Document(product.getId(), product.getName(),
+                product.getCategory(), product.getDescription());
+        afterCommit(() -> apply(target -> target.add(document)));
+    }
+
+    @Override
+    public void removeAfterCommit(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> apply(target -> target.remove(productId)));
+    }
+
+    /**
+     * Loads the index from the database once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database so changes made outside the application are picked up.
+     */
+    @Scheduled(fixedDelayString = "${app.search.index.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.search.index.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        if (isReady()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reads every product in ID order, in batches, into a new index and swaps it in.
+     * Product changes committed meanwhile are applied to both the old and the new index.
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = new Index();
+        try {
+            long afterId = 0;
+            List<Object[]> rows;
+            do {
+                rows = productRepository.findSearchFieldsAfter(afterId, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    afterId = (Long) row[0];
+                    fresh.add(new Document(afterId, (String) row[1], (String) row[2], (String) row[3]));
+                }
+            } while (rows.size() == loadBatchSize);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Could not rebuild the product search index: {}", e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            replay.forEach(update -> update.accept(fresh));
+            replay = null;
+            index = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rebuilds.incrementAndGet();
+        lastRebuildMs = System.currentTimeMillis() - started;
+        lastRebuildAt = LocalDateTime.now();
+        logger.info("Product search index loaded {} product(s), {} word(s) in {} ms",
+                fresh.docs.size(), fresh.postings.size(), lastRebuildMs);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", isReady());
+        lock.readLock().lock();
+        try {
+            stats.put("products", index.docs.size());
+            stats.put("words", index.postings.size());
+            stats.put("trigrams", index.wordsByTrigram.size());
+            stats.put("postings", index.postings.values().stream().mapToLong(p -> p.size).sum());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long queryCount = queries.get();
+        stats.put("queries", queryCount);
+        stats.put("avgQueryMicros", queryCount > 0 ? queryNanos.get() / queryCount / 1000 : 0);
+        long fuzzyCount = fuzzyQueries.get();
+        stats.put("fuzzyQueries", fuzzyCount);
+        stats.put("avgFuzzyQueryMicros", fuzzyCount > 0 ? fuzzyQueryNanos.get() / fuzzyCount / 1000 : 0);
+        stats.put("updates", updates.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lastRebuildMs", lastRebuildMs);
+        stats.put("lastRebuildAt", lastRebuildAt);
+        return stats;
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private List<Long> search(String query, int typos, AtomicLong counter, AtomicLong nanos) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return index.search(words, maxPrefixExpansions, typos, maxTypoExpansions);
+        } finally {
+            lock.readLock().unlock();
+            counter.incrementAndGet();
+            nanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    private void apply(Consumer<Index> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(index);
+            if (replay != null) {
+                replay.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        updates.incrementAndGet();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * The searchable text of one product.
+     */
+    record Document(long productId, String name, String category, String description) {}
+
+    /**
+     * Words of one indexed product (to undo its postings) and its weighted length.
+     */
+    private record Entry(String[] words, int length) {}
+
+    /**
+     * Word dictionary, sorted for prefix lookups, with the postings of each word.
+     */
+    static final class Index {
+        private final TreeMap<String, Postings> postings = new TreeMap<>();
+        private final HashMap<Long, Entry> docs = new HashMap<>();
+        // Dictionary words by the trigrams they contain, for finding misspelt words
+        private final HashMap<String, Set<String>> wordsByTrigram = new HashMap<>();
+        private long totalLength;
+
+        void add(Document document) {
+            remove(document.productId());
+            Map<String, Integer> frequencies = new LinkedHashMap<>();
+            int length = count(frequencies, document.name(), NAME_WEIGHT)
+                    + count(frequencies, document.category(), CATEGORY_WEIGHT)
+                    + count(frequencies, document.description(), DESCRIPTION_WEIGHT);
+
+            String[] words = new String[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                Postings list = postings.get(frequency.getKey());
+                if (list == null) {
+                    list = new Postings();
+                    postings.put(frequency.getKey(), list);
+                    for (String trigram : trigrams(frequency.getKey())) {
+                        wordsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(frequency.getKey());
+                    }
+                }
+                list.put(document.productId(), frequency.getValue());
+                // Share the dictionary's copy of the word rather than keeping one per product
+                words[i++] = postings.ceilingKey(frequency.getKey());
+            }
+            docs.put(document.productId(), new Entry(words, length));
+            totalLength += length;
+        }
+
+        void remove(long productId) {
+            Entry entry = docs.remove(productId);
+            if (entry == null) {
+                return;
+            }
+            for (String word : entry.words()) {
+                Postings list = postings.get(word);
+                if (list != null && list.remove(productId) && list.size == 0) {
+                    postings.remove(word);
+                    for (String trigram : trigrams(word)) {
+                        Set<String> words = wordsByTrigram.get(trigram);
+                        if (words != null && words.remove(word) && words.isEmpty()) {
+                            wordsByTrigram.remove(trigram);
+                        }
+                    }
+                }
+            }
+            totalLength -= entry.length();
+        }
+
+        /**
+         * Ranked IDs of products matching every word. With maxTypos above zero a word also matches
+         * dictionary words within that many edits of it, scored below the word as typed.
+         */
+        List<Long> search(List<String> words, int maxPrefixExpansions, int maxTypos, int maxTypoExpansions) {
+            if (docs.isEmpty()) {
+                return List.of();
+            }
+            double avgLength = (double) totalLength / docs.size();
+
+            // Score each query word separately; a product must match all of them
+            List<Map<Long, Double>> perWord = new ArrayList<>(words.size());
+            for (int w = 0; w < words.size(); w++) {
+                String word = words.get(w);
+                Map<Long, Double> scores = new HashMap<>();
+                Postings exact = postings.get(word);
+                if (exact != null) {
+                    score(scores, exact, idf(exact.size), avgLength);
+                }
+                if (w == words.size() - 1) {
+                    scoreVariants(scores, expansions(word, maxPrefixExpansions), PREFIX_MATCH_FACTOR, avgLength);
+                }
+                int allowedTypos = Math.min(maxTypos, word.length() >= 6 ? 2 : word.length() >= 3 ? 1 : 0);
+                if (allowedTypos > 0) {
+                    double factor = TYPO_MATCH_FACTOR;
+                    for (List<Postings> variants : typoVariants(word, allowedTypos, maxTypoExpansions)) {
+                        scoreVariants(scores, variants, factor, avgLength);
+                        factor *= TYPO_MATCH_FACTOR;
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+                perWord.add(scores);
+            }
+
+            perWord.sort(Comparator.comparingInt(Map::size));
+            Map<Long, Double> smallest = perWord.get(0);
+            List<Map.Entry<Long, Double>> hits = new ArrayList<>(smallest.size());
+            for (Map.Entry<Long, Double> candidate : smallest.entrySet()) {
+                double total = candidate.getValue();
+                boolean matchesAll = true;
+                for (int w = 1; w < perWord.size() && matchesAll; w++) {
+                    Double score = perWord.get(w).get(candidate.getKey());
+                    if (score == null) {
+                        matchesAll = false;
+                    } else {
+                        total += score;
+                    }
+                }
+                if (matchesAll) {
+                    hits.add(Map.entry(candidate.getKey(), total));
+                }
+            }
+            hits.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            List<Long> ids = new ArrayList<>(hits.size());
+            for (Map.Entry<Long, Double> hit : hits) {
+                ids.add(hit.getKey());
+            }
+            return ids;
+        }
+
+        // Variants (completions or misspellings) share the idf of everything the word now matches,
+        // so a rare variant cannot outrank the word as typed
+        private void scoreVariants(Map<Long, Double> scores, List<Postings> variants, double factor,
+                                   double avgLength) {
+            Map<Long, Double> matched = new HashMap<>();
+            for (Postings variant : variants) {
+                score(matched, variant, 1.0, avgLength);
+            }
+            if (matched.isEmpty()) {
+                return;
+            }
+            int matchingProducts = matched.size();
+            for (Long productId : scores.keySet()) {
+                if (!matched.containsKey(productId)) {
+                    matchingProducts++;
+                }
+            }
+            double weight = factor * idf(matchingProducts);
+            matched.forEach((productId, tfScore) -> scores.merge(productId, weight * tfScore, Math::max));
+        }
+
+        // Dictionary words 1..maxTypos edits away, grouped by distance, the most common first within
+        // each distance. Candidates must share enough trigrams: one edit changes at most three of them.
+        private List<List<Postings>> typoVariants(String word, int maxTypos, int limit) {
+            Map<String, Integer> shared = new HashMap<>();
+            List<String> queryTrigrams = trigrams(word);
+            for (String trigram : queryTrigrams) {
+                Set<String> candidates = wordsByTrigram.get(trigram);
+                if (candidates != null) {
+                    for (String candidate : candidates) {
+                        shared.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+            int minShared = Math.max(1, queryTrigrams.size() - 3 * maxTypos);
+            String queryKey = spellingKey(word);
+            List<List<String>> byDistance = new ArrayList<>();
+            for (int d = 0; d < maxTypos; d++) {
+                byDistance.add(new ArrayList<>());
+            }
+            for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+                String other = candidate.getKey();
+                if (candidate.getValue() < minShared || other.equals(word)
+                        || Math.abs(other.length() - word.length()) > maxTypos) {
+                    continue;
+                }
+                // Spellings that differ only in vowel length or doubled letters count as one edit
+                int distance = Math.min(editDistance(word, other, maxTypos),
+                        Math.max(1, editDistance(queryKey, spellingKey(other), maxTypos)));
+                if (distance > 0 && distance <= maxTypos) {
+                    byDistance.get(distance - 1).add(other);
+                }
+            }
+
+            List<List<Postings>> variants = new ArrayList<>(maxTypos);
+            int remaining = limit;
+            for (List<String> candidates : byDistance) {
+                List<Postings> lists = new ArrayList<>();
+                for (String candidate : candidates) {
+                    lists.add(postings.get(candidate));
+                }
+                lists.sort(Comparator.comparingInt((Postings p) -> p.size).reversed());
+                lists = lists.subList(0, Math.min(remaining, lists.size()));
+                remaining -= lists.size();
+                variants.add(lists);
+            }
+            return variants;
+        }
+
+        // The most common words that start with the prefix (the prefix itself excluded)
+        private List<Postings> expansions(String prefix, int limit) {
+            List<Postings> matches = new ArrayList<>(
+                    postings.subMap(prefix, false, prefix + Character.MAX_VALUE, false).values());
+            if (matches.size() > limit) {
+                matches.sort(Comparator.comparingInt((Postings p) -> p.size).reversed());
+                return matches.subList(0, limit);
+            }
+            return matches;
+        }
+
+        private double idf(int matchingProducts) {
+            return Math.log(1 + (docs.size() - matchingProducts + 0.5) / (matchingProducts + 0.5));
+        }
+
+        // BM25 contribution of one word; a product reached through several words keeps its best score
+        private void score(Map<Long, Double> scores, Postings list, double idf, double avgLength) {
+            for (int i = 0; i < list.size; i++) {
+                long productId = list.ids[i];
+                int tf = list.frequencies[i];
+                double norm = K1 * (1 - B + B * docs.get(productId).length() / avgLength);
+                double score = idf * tf * (K1 + 1) / (tf + norm);
+                scores.merge(productId, score, Math::max);
+            }
+        }
+
+        // Trigrams of the word padded with a boundary marker, so short words still have some
+        private static List<String> trigrams(String word) {
+            String padded = "$" + word + "$";
+            List<String> trigrams = new ArrayList<>(padded.length() - 2);
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+            return trigrams;
+        }
+
+        // Romanised Hindi and Marathi spell long vowels and doubled consonants inconsistently
+        // (jeera/jira, haldi/haldee, dhaniya/dhaaniya), so those differences are folded away
+        static String spellingKey(String word) {
+            String folded = word.replace("ee", "i").replace("oo", "u");
+            StringBuilder key = new StringBuilder(folded.length());
+            for (int i = 0; i < folded.length(); i++) {
+                char c = folded.charAt(i);
+                if (key.length() == 0 || key.charAt(key.length() - 1) != c) {
+                    key.append(c);
+                }
+            }
+            return key.toString();
+        }
+
+        // Optimal string alignment distance (an adjacent swap counts as one edit);
+        // returns max + 1 as soon as the distance is known to exceed max
+        static int editDistance(String a, String b, int max) {
+            int[] before = new int[b.length() + 1];
+            int[] previous = new int[b.length() + 1];
+            int[] current = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                int rowMin = current[0];
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                        value = Math.min(value, before[j - 2] + 1);
+                    }
+                    current[j] = value;
+                    rowMin = Math.min(rowMin, value);
+                }
+                if (rowMin > max) {
+                    return max + 1;
+                }
+                int[] recycled = before;
+                before = previous;
+                previous = current;
+                current = recycled;
+            }
+            return previous[b.length()];
+        }
+
+        private static int count(Map<String, Integer> frequencies, String text, int weight) {
+            List<String> words = tokenize(text);
+            for (String word : words) {
+                frequencies.merge(word, weight, Integer::sum);
+            }
+            return words.size() * weight;
+        }
+    }
+
+    /**
+     * Product IDs containing a word, in ascending order, with the word's weighted frequency in each.
+     * Kept in primitive arrays; loading in ID order only ever appends.
+     */
+    static final class Postings {
+        private long[] ids = new long[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void put(long productId, int frequency) {
+            int i = Arrays.binarySearch(ids, 0, size, productId);
+            if (i >= 0) {
+                frequencies[i] = frequency;
+                return;
+            }
+            int at = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(frequencies, at, frequencies, at + 1, size - at);
+            ids[at] = productId;
+            frequencies[at] = frequency;
+            size++;
+        }
+
+        boolean remove(long productId) {
+            int i = Arrays.binarySearch(ids, 0, size, productId);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            System.arraycopy(frequencies, i + 1, frequencies, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -11,60 +11,50 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class NotificationService {
     
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+    public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+    
     @Autowired
     private AdminNotificationRepository notificationRepository;
     
     @Autowired
-    private EmailNotificationService emailNotificationService;
+    private OutboxService outboxService;
     
     /**
-     * Notify admin about new order placement
+     * Notify admin about new order placement.
+     * Recorded in the outbox within the checkout transaction; the notification row and email
+     * are delivered after commit, so checkout never waits on the mail server. An order is never
+     * committed without its notification, so a failure to write the outbox row fails the checkout.
      */
     @Transactional
     public void notifyNewOrder(Order order, User customer) {
-        try {
-            // Create database notification
-            AdminNotification notification = new AdminNotification();
-            notification.setTitle("New Order Placed");
-            notification.setMessage(String.format(
-                "New order #%d placed by %s (%s) for ₹%.2f. Payment method: %s",
-                order.getId(),
-                getCustomerName(customer),
-                customer.getMobileNumber(),
-                order.getTotalAmount(),
-                order.getPaymentMethod()
-            ));
-            notification.setType("ORDER_PLACED");
-            notification.setOrderId(order.getId());
-            notification.setCustomerName(getCustomerName(customer));
-            notification.setCustomerMobile(customer.getMobileNumber());
-            
-            notificationRepository.save(notification);
-            
-            // Log to console (FREE option)
-            logger.info("🔔 ADMIN NOTIFICATION: {}", notification.getMessage());
-            
-            // Send email notification
-            emailNotificationService.sendNewOrderEmail(
-                notification.getCustomerName(),
-                notification.getCustomerMobile(),
-                notification.getOrderId(),
-                order.getTotalAmount().toString(),
-                order.getPaymentMethod().name()
-            );
-            
-            // TODO: Add WebSocket notification here for real-time updates
-            
-        } catch (Exception e) {
-            logger.error("Failed to create admin notification for order {}", order.getId(), e);
-        }
+        Map<String, String> payload = new HashMap<>();
+        payload.put("title", "New Order Placed");
+        payload.put("message", String.format(
+            "New order #%d placed by %s (%s) for ₹%.2f. Payment method: %s",
+            order.getId(),
+            getCustomerName(customer),
+            customer.getMobileNumber(),
+            order.getTotalAmount(),
+            order.getPaymentMethod()
+        ));
+        payload.put("customerName", getCustomerName(customer));
+        payload.put("customerMobile", customer.getMobileNumber());
+        payload.put("totalAmount", order.getTotalAmount().toString());
+        payload.put("paymentMethod", order.getPaymentMethod().name());
+        
+        outboxService.enqueue(ORDER_PLACED, order.getId(), payload);
+        
+        // TODO: Add WebSocket notification here for real-time updates
     }
     
     /**
@@ -136,43 +126,27 @@ public class NotificationService {
     }
     
     /**
-     * Notify admin about order cancellation
+     * Notify admin about order cancellation.
+     * Best effort: the outbox event is recorded after the cancellation commits, so a failure to
+     * record it is logged and never undoes the cancellation.
      */
-    @Transactional
     public void notifyOrderCancellation(Order order, User user, String reason) {
-        try {
-            AdminNotification notification = new AdminNotification();
-            notification.setTitle("Order Cancelled");
-            notification.setMessage(String.format(
-                "Order #%d cancelled by %s (%s). Reason: %s. Amount: ₹%.2f",
-                order.getId(),
-                getCustomerName(user),
-                user.getMobileNumber(),
-                reason != null ? reason : "No reason provided",
-                order.getTotalAmount()
-            ));
-            notification.setType("ORDER_CANCELLED");
-            notification.setOrderId(order.getId());
-            notification.setCustomerName(getCustomerName(user));
-            notification.setCustomerMobile(user.getMobileNumber());
-            
-            notificationRepository.save(notification);
-            
-            // Log to console
-            logger.info("🔔 ADMIN NOTIFICATION: {}", notification.getMessage());
-            
-            // Send email notification
-            emailNotificationService.sendOrderCancellationEmail(
-                notification.getCustomerName(),
-                notification.getCustomerMobile(),
-                notification.getOrderId(),
-                order.getTotalAmount().toString(),
-                reason
-            );
-            
-        } catch (Exception e) {
-            logger.error("Failed to create cancellation notification for order {}", order.getId(), e);
-        }
+        Map<String, String> payload = new HashMap<>();
+        payload.put("title", "Order Cancelled");
+        payload.put("message", String.format(
+            "Order #%d cancelled by %s (%s). Reason: %s. Amount: ₹%.2f",
+            order.getId(),
+            getCustomerName(user),
+            user.getMobileNumber(),
+            reason != null ? reason : "No reason provided",
+            order.getTotalAmount()
+        ));
+        payload.put("customerName", getCustomerName(user));
+        payload.put("customerMobile", user.getMobileNumber());
+        payload.put("totalAmount", order.getTotalAmount().toString());
+        payload.put("reason", reason);
+        
+        outboxService.enqueueAfterCommit(ORDER_CANCELLED, order.getId(), payload);
     }
     
     private String getCustomerName(User customer) {
@@ -0,0 +1,72 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.AdminNotification;
+import com.example.handPick.model.OutboxEvent;
+import com.example.handPick.repository.AdminNotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Delivers order events recorded by NotificationService: stores the admin notification
+ * (once per order and type) and then emails the admin.
+ */
+@Service
+public class OrderNotificationOutboxHandler implements OutboxEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNotificationOutboxHandler.class);
+
+    private final AdminNotificationRepository notificationRepository;
+    private final EmailNotificationService emailNotificationService;
+
+    @Autowired
+    public OrderNotificationOutboxHandler(AdminNotificationRepository notificationRepository,
+                                          EmailNotificationService emailNotificationService) {
+        this.notificationRepository = notificationRepository;
+        this.emailNotificationService = emailNotificationService;
+    }
+
+    @Override
+    public boolean supports(String eventType) {
+        return NotificationService.ORDER_PLACED.equals(eventType)
+                || NotificationService.ORDER_CANCELLED.equals(eventType);
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, String> payload) {
+        Long orderId = event.getAggregateId();
+        String type = event.getEventType();
+
+        // A retry after a failed email must not store the notification twice
+        if (!notificationRepository.existsByOrderIdAndType(orderId, type)) {
+            AdminNotification notification = new AdminNotification();
+            notification.setTitle(payload.get("title"));
+            notification.setMessage(payload.get("message"));
+            notification.setType(type);
+            notification.setOrderId(orderId);
+            notification.setCustomerName(payload.get("customerName"));
+            notification.setCustomerMobile(payload.get("customerMobile"));
+            notificationRepository.save(notification);
+            logger.info("🔔 ADMIN NOTIFICATION: {}", notification.getMessage());
+        }
+
+        if (NotificationService.ORDER_PLACED.equals(type)) {
+            emailNotificationService.sendNewOrderEmail(
+                    payload.get("customerName"),
+                    payload.get("customerMobile"),
+                    orderId,
+                    payload.get("totalAmount"),
+                    payload.get("paymentMethod"));
+        } else {
+            emailNotificationService.sendOrderCancellationEmail(
+                    payload.get("customerName"),
+                    payload.get("customerMobile"),
+                    orderId,
+                    payload.get("totalAmount"),
+                    payload.get("reason"));
+        }
+    }
+}
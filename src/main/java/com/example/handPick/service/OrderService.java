@@ -1,6 +1,7 @@
 package com.example.handPick.service;
 
 import com.example.handPick.dto.OrderFeedbackDto;
+import com.example.handPick.dto.OrderSliceResponse;
 import com.example.handPick.model.Order;
 import com.example.handPick.model.OrderItem;
 import com.example.handPick.model.User;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,11 +19,19 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    // Bounds used for cursor listings when no date filter or cursor is given
+    private static final LocalDateTime EARLIEST_ORDER_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_ORDER_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -113,6 +123,67 @@ public class OrderService {
         return getAllOrdersWithFilters(null, startDate, endDate, sortBy, sortDirection, pageable);
     }
 
+    // Cursor page of a user's orders, newest first, optionally filtered by status and date range.
+    // Seeks past the cursor's (orderDate, id) instead of skipping rows, and runs no COUNT query.
+    @Transactional(readOnly = true)
+    public OrderSliceResponse getOrderSliceForUser(String mobileNumber,
+                                                   String status,
+                                                   LocalDateTime startDate,
+                                                   LocalDateTime endDate,
+                                                   String cursor,
+                                                   int size) {
+        User user = userRepository.findByMobileNumber(mobileNumber)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        PageCursors.OrderPosition before = cursorPosition(cursor);
+        Slice<Order> slice = orderRepository.findSliceByUserBefore(user, statusesFor(status),
+                startDate != null ? startDate : EARLIEST_ORDER_DATE, endDate != null ? endDate : LATEST_ORDER_DATE,
+                before.orderDate(), before.id(), PageRequest.of(0, cursorPageSize(size)));
+        return toSliceResponse(slice);
+    }
+
+    // Admin: cursor page of all orders, newest first, optionally filtered by status and date range
+    @Transactional(readOnly = true)
+    public OrderSliceResponse getOrderSliceForAdmin(String status,
+                                                    LocalDateTime startDate,
+                                                    LocalDateTime endDate,
+                                                    String cursor,
+                                                    int size) {
+        PageCursors.OrderPosition before = cursorPosition(cursor);
+        Slice<Order> slice = orderRepository.findSliceBefore(statusesFor(status),
+                startDate != null ? startDate : EARLIEST_ORDER_DATE, endDate != null ? endDate : LATEST_ORDER_DATE,
+                before.orderDate(), before.id(), PageRequest.of(0, cursorPageSize(size)));
+        return toSliceResponse(slice);
+    }
+
+    // No cursor means the first page: start after the latest possible position
+    private static PageCursors.OrderPosition cursorPosition(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new PageCursors.OrderPosition(LATEST_ORDER_DATE, Long.MAX_VALUE);
+        }
+        return PageCursors.decodeOrder(cursor);
+    }
+
+    private static Set<Order.OrderStatus> statusesFor(String status) {
+        if (status == null || status.isBlank()) {
+            return EnumSet.allOf(Order.OrderStatus.class);
+        }
+        return EnumSet.of(Order.OrderStatus.valueOf(status.trim().toUpperCase()));
+    }
+
+    private static int cursorPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private OrderSliceResponse toSliceResponse(Slice<Order> slice) {
+        List<Order> orders = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !orders.isEmpty()) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = PageCursors.encodeOrder(last.getOrderDate(), last.getId());
+        }
+        return new OrderSliceResponse(orders.stream().map(this::convertToDto).toList(), slice.getSize(), nextCursor);
+    }
+
     // Create Sort object based on sortBy and sortDirection
     private Sort createSort(String sortBy, String sortDirection) {
         if (sortBy == null || sortBy.trim().isEmpty()) {
@@ -0,0 +1,19 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.OutboxEvent;
+
+import java.util.Map;
+
+/**
+ * Delivers one kind of outbox event. Events can be delivered more than once (retries, expired
+ * leases), so implementations must be idempotent.
+ */
+public interface OutboxEventHandler {
+
+    boolean supports(String eventType);
+
+    /**
+     * Performs the side effect; throwing schedules a retry with backoff.
+     */
+    void handle(OutboxEvent event, Map<String, String> payload) throws Exception;
+}
@@ -0,0 +1,252 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.OutboxEvent;
+import com.example.handPick.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional outbox. Side effects are written to outbox_events inside the caller's transaction
+ * and handed to a bounded worker pool once it commits. Failed deliveries are retried with
+ * exponential backoff by a scheduled poller, which also picks up events the pool had no room for.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+    private static final TypeReference<Map<String, String>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate workerTransaction;
+
+    @Value("${app.outbox.workers:2}")
+    private int workers;
+
+    @Value("${app.outbox.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.base-backoff-ms:5000}")
+    private long baseBackoffMs;
+
+    @Value("${app.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${app.outbox.poll-batch-size:100}")
+    private int pollBatchSize;
+
+    private ThreadPoolExecutor executor;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         List<OutboxEventHandler> handlers,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.objectMapper = objectMapper;
+        this.workerTransaction = new TransactionTemplate(transactionManager);
+        this.workerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stopWorkers() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Anything left stays PENDING in the table and is picked up after restart
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Records an event in the current transaction; it is dispatched once that transaction commits.
+     * The (type, aggregateId) pair is unique, so an event can only be recorded once.
+     */
+    @Transactional
+    public void enqueue(String eventType, Long aggregateId, Map<String, String> payload) {
+        Long eventId = record(eventType, aggregateId, payload);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(eventId);
+                }
+            });
+        } else {
+            dispatch(eventId);
+        }
+    }
+
+    /**
+     * Best-effort variant for notifications that must not fail the caller: the event is recorded in its
+     * own transaction once the caller's commits, and a failure to record it is logged and dropped.
+     */
+    public void enqueueAfterCommit(String eventType, Long aggregateId, Map<String, String> payload) {
+        Runnable recordAndDispatch = () -> {
+            try {
+                dispatch(workerTransaction.execute(status -> record(eventType, aggregateId, payload)));
+            } catch (Exception e) {
+                logger.error("Could not record outbox event {} for {}; it will not be delivered",
+                        eventType, aggregateId, e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordAndDispatch.run();
+                }
+            });
+        } else {
+            recordAndDispatch.run();
+        }
+    }
+
+    /**
+     * Re-dispatches events whose retry time has come, and any the worker pool rejected.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:10000}",
+            initialDelayString = "${app.outbox.poll-initial-delay-ms:15000}")
+    public void pollDueEvents() {
+        List<Long> dueIds = outboxEventRepository.findDueIds(
+                OutboxEvent.OutboxStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, pollBatchSize));
+        dueIds.forEach(this::dispatch);
+    }
+
+    /**
+     * Event counts per status for the admin dashboard.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (OutboxEvent.OutboxStatus status : OutboxEvent.OutboxStatus.values()) {
+            stats.put(status.name(), outboxEventRepository.countByStatus(status));
+        }
+        stats.put("QUEUED_IN_MEMORY", (long) executor.getQueue().size());
+        return stats;
+    }
+
+    private Long record(String eventType, Long aggregateId, Map<String, String> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize outbox payload for " + eventType, e);
+        }
+        return outboxEventRepository.save(event).getId();
+    }
+
+    private void dispatch(Long eventId) {
+        try {
+            executor.execute(() -> deliver(eventId));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Outbox worker queue full; event {} left for the poller", eventId);
+        }
+    }
+
+    private void deliver(Long eventId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = workerTransaction.execute(status -> outboxEventRepository.claim(
+                eventId, OutboxEvent.OutboxStatus.PENDING, now, now.plusNanos(leaseMs * 1_000_000)));
+        if (claimed == null || claimed == 0) {
+            return; // Not due, already delivered, or claimed by another worker
+        }
+        OutboxEvent event = outboxEventRepository.findById(eventId).orElse(null);
+        if (event == null) {
+            return;
+        }
+
+        try {
+            OutboxEventHandler handler = handlers.stream()
+                    .filter(h -> h.supports(event.getEventType()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No outbox handler for event type " + event.getEventType()));
+            handler.handle(event, objectMapper.readValue(event.getPayload(), PAYLOAD_TYPE));
+            workerTransaction.executeWithoutResult(status -> markSent(eventId));
+        } catch (Exception e) {
+            workerTransaction.executeWithoutResult(status -> markFailed(eventId, e));
+        }
+    }
+
+    private void markSent(Long eventId) {
+        outboxEventRepository.findById(eventId).ifPresent(event -> {
+            event.setStatus(OutboxEvent.OutboxStatus.SENT);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setLastError(null);
+            outboxEventRepository.save(event);
+        });
+    }
+
+    private void markFailed(Long eventId, Exception error) {
+        outboxEventRepository.findById(eventId).ifPresent(event -> {
+            String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+            event.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+                logger.error("Outbox event {} ({} for #{}) failed permanently after {} attempts",
+                        eventId, event.getEventType(), event.getAggregateId(), event.getAttempts(), error);
+            } else {
+                long delayMs = backoffMs(event.getAttempts());
+                event.setNextAttemptAt(LocalDateTime.now().plusNanos(delayMs * 1_000_000));
+                logger.warn("Outbox event {} ({} for #{}) failed on attempt {}; retrying in {} ms: {}",
+                        eventId, event.getEventType(), event.getAggregateId(), event.getAttempts(), delayMs, message);
+            }
+            outboxEventRepository.save(event);
+        });
+    }
+
+    // Exponential backoff with up to 20% jitter so retries of a burst do not fire together
+    private long backoffMs(int attempts) {
+        long delay = baseBackoffMs << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, maxBackoffMs);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.handPick.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor is the position of the last row a client has seen,
+ * Base64url-encoded with a type tag so a product cursor cannot be passed to an order listing.
+ * Cursors are not signed: they only say where to resume within results the caller may already see.
+ */
+public final class PageCursors {
+
+    private static final String PRODUCT_TAG = "p1";
+    private static final String ORDER_TAG = "o1";
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Position of an order in the (orderDate, id) ordering used by order listings.
+     */
+    public record OrderPosition(LocalDateTime orderDate, long id) {}
+
+    private PageCursors() {}
+
+    public static String encodeProduct(long id) {
+        return encode(PRODUCT_TAG + SEPARATOR + id);
+    }
+
+    /**
+     * The product ID a cursor resumes after.
+     * @throws IllegalArgumentException if the cursor is malformed or not a product cursor.
+     */
+    public static long decodeProduct(String cursor) {
+        String[] parts = decode(cursor, PRODUCT_TAG, 2);
+        try {
+            return Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    public static String encodeOrder(LocalDateTime orderDate, long id) {
+        return encode(ORDER_TAG + SEPARATOR + orderDate + SEPARATOR + id);
+    }
+
+    /**
+     * The order position a cursor resumes after.
+     * @throws IllegalArgumentException if the cursor is malformed or not an order cursor.
+     */
+    public static OrderPosition decodeOrder(String cursor) {
+        String[] parts = decode(cursor, ORDER_TAG, 3);
+        try {
+            return new OrderPosition(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor, String tag, int fields) {
+        String position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        String[] parts = position.split("\\|", -1);
+        if (parts.length != fields || !parts[0].equals(tag)) {
+            throw invalid();
+        }
+        return parts;
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("Invalid page cursor");
+    }
+}
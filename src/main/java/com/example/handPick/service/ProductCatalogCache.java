@@ -0,0 +1,215 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.ProductDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read cache for the product catalog: single products by ID, and listings (pages of the catalog
+ * and search results) by a key the caller builds. Each listing remembers the product IDs on it, so a
+ * change to one product evicts only that product and the listings showing it. Adding or deleting a
+ * product shifts every listing, and a change to a product's text can move it in or out of search
+ * results, so those evict more widely. Evictions happen after the change commits; a value read while
+ * an eviction happened is returned but not cached, so a stale read cannot be cached after its eviction.
+ * Entries also expire after ttl-ms, which bounds staleness for changes made outside the application.
+ */
+@Service
+public class ProductCatalogCache {
+
+    /**
+     * Catalog listings only change membership when products are added or removed;
+     * search listings also change when a product's name, description or category does.
+     */
+    public enum ListingKind { CATALOG, SEARCH }
+
+    @Value("${app.catalog.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.catalog.cache.max-products:10000}")
+    private int maxProducts;
+
+    @Value("${app.catalog.cache.max-listings:1000}")
+    private int maxListings;
+
+    @Value("${app.catalog.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private BoundedTtlCache<Long, ProductDto> products;
+    private BoundedTtlCache<String, Listing> listings;
+
+    // Bumped by every eviction; a load that saw it change does not cache its result
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong productHits = new AtomicLong();
+    private final AtomicLong productMisses = new AtomicLong();
+    private final AtomicLong listingHits = new AtomicLong();
+    private final AtomicLong listingMisses = new AtomicLong();
+    private final AtomicLong invalidatedProducts = new AtomicLong();
+    private final AtomicLong invalidatedListings = new AtomicLong();
+
+    private record Listing(Object value, Set<Long> productIds, ListingKind kind) {}
+
+    @PostConstruct
+    void initCaches() {
+        products = new BoundedTtlCache<>(maxProducts, ttlMs);
+        listings = new BoundedTtlCache<>(maxListings, ttlMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached product, or the loader's result (cached if present).
+     */
+    public Optional<ProductDto> getProduct(Long id, Supplier<Optional<ProductDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        ProductDto cached = products.get(id);
+        if (cached != null) {
+            productHits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        productMisses.incrementAndGet();
+        long seen = generation.get();
+        Optional<ProductDto> loaded = loader.get();
+        if (loaded.isPresent() && generation.get() == seen) {
+            products.put(id, loaded.get());
+        }
+        return loaded;
+    }
+
+    /**
+     * The cached listing, or the loader's result, cached together with the IDs of the products on it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getListing(String key, ListingKind kind, Supplier<T> loader, Function<T, Set<Long>> productIdsOf) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Listing cached = listings.get(key);
+        if (cached != null) {
+            listingHits.incrementAndGet();
+            return (T) cached.value();
+        }
+        listingMisses.incrementAndGet();
+        long seen = generation.get();
+        T loaded = loader.get();
+        if (generation.get() == seen) {
+            listings.put(key, new Listing(loaded, productIdsOf.apply(loaded), kind));
+        }
+        return loaded;
+    }
+
+    /**
+     * Evicts a changed product and the listings showing it once the current transaction commits.
+     * If its searchable text changed, every search listing is evicted too.
+     */
+    public void evictProductAfterCommit(Long productId, boolean textChanged) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            evictProduct(productId);
+            invalidatedListings.addAndGet(listings.removeIf((key, listing) ->
+                    listing.productIds().contains(productId)
+                            || (textChanged && listing.kind() == ListingKind.SEARCH)));
+        });
+    }
+
+    /**
+     * Evicts products whose stock changed, and the listings showing them, once the current transaction commits.
+     */
+    public void evictStockAfterCommit(Collection<Long> changedIds) {
+        List<Long> productIds = List.copyOf(changedIds);
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            productIds.forEach(this::evictProduct);
+            invalidatedListings.addAndGet(listings.removeIf((key, listing) ->
+                    productIds.stream().anyMatch(listing.productIds()::contains)));
+        });
+    }
+
+    /**
+     * Evicts a product and every listing once the current transaction commits; used when a
+     * product is added or deleted, which shifts the contents of every page.
+     */
+    public void evictAllListingsAfterCommit(Long productId) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            if (productId != null) {
+                evictProduct(productId);
+            }
+            invalidatedListings.addAndGet(listings.removeIf((key, listing) -> true));
+        });
+    }
+
+    /**
+     * Drops expired entries so they do not hold memory until the next access.
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.cache.ttl-ms:300000}",
+            initialDelayString = "${app.catalog.cache.ttl-ms:300000}")
+    public void evictExpired() {
+        products.evictExpired();
+        listings.evictExpired();
+    }
+
+    /**
+     * Hit ratios, sizes and eviction counts for the admin dashboard.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ttlMs", ttlMs);
+        stats.put("products", cacheStats(products, productHits.get(), productMisses.get(), invalidatedProducts.get()));
+        stats.put("listings", cacheStats(listings, listingHits.get(), listingMisses.get(), invalidatedListings.get()));
+        return stats;
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private void evictProduct(Long productId) {
+        if (products.remove(productId) != null) {
+            invalidatedProducts.incrementAndGet();
+        }
+    }
+
+    private static Map<String, Object> cacheStats(BoundedTtlCache<?, ?> cache, long hits, long misses, long invalidated) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxSize", cache.getMaxSize());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        stats.put("invalidated", invalidated);
+        stats.put("evictedForSpace", cache.getEvictionCount());
+        stats.put("expired", cache.getExpirationCount());
+        return stats;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text product search over name, category and description.
+ * ProductService falls back to database LIKE queries while the engine is not ready.
+ */
+public interface ProductSearchEngine {
+
+    /**
+     * True when the engine is switched on and has been loaded.
+     */
+    boolean isReady();
+
+    /**
+     * IDs of the products matching every word of the query, best match first.
+     * The last word also matches words it is a prefix of, so partially typed queries find results.
+     */
+    List<Long> search(String query);
+
+    /**
+     * Like search, but a word also matches words spelt up to two edits differently
+     * (one edit for words of three to five letters). Slower; meant for when search finds nothing.
+     */
+    List<Long> searchFuzzy(String query);
+
+    /**
+     * Adds or replaces a product's entry once the current transaction commits.
+     */
+    void indexAfterCommit(Product product);
+
+    /**
+     * Removes a product's entry once the current transaction commits.
+     */
+    void removeAfterCommit(Long productId);
+
+    /**
+     * Index size and query counters for the admin dashboard.
+     */
+    Map<String, Object> getStats();
+}
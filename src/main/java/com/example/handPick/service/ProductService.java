@@ -1,33 +1,66 @@
 package com.example.handPick.service;
 
 import com.example.handPick.dto.ProductDto;
+import com.example.handPick.dto.ProductPageResponse;
+import com.example.handPick.dto.ProductSuggestionDto;
 import com.example.handPick.dto.ProductUpdateDto;
 import com.example.handPick.model.Product;
 import com.example.handPick.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import com.example.handPick.model.Cart;
-import com.example.handPick.model.CartItem;
-import com.example.handPick.repository.CartItemRepository;
+import org.springframework.data.domain.Slice;
 
 @Service
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final CartItemRepository cartItemRepository;
+    private final StockReservationService stockReservationService;
+    private final StockReservationEngine stockReservationEngine;
+    private final ProductStockShardService productStockShardService;
+    private final ProductSearchEngine productSearchEngine;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductCatalogCache productCatalogCache;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    @Value("${app.stock.hot.default-shards:8}")
+    private int defaultShardCount;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, CartItemRepository cartItemRepository) {
+    public ProductService(ProductRepository productRepository,
+                          StockReservationService stockReservationService,
+                          StockReservationEngine stockReservationEngine,
+                          ProductStockShardService productStockShardService,
+                          ProductSearchEngine productSearchEngine,
+                          ProductSuggestIndex productSuggestIndex,
+                          ProductCatalogCache productCatalogCache) {
         this.productRepository = productRepository;
-        this.cartItemRepository = cartItemRepository;
+        this.stockReservationService = stockReservationService;
+        this.stockReservationEngine = stockReservationEngine;
+        this.productStockShardService = productStockShardService;
+        this.productSearchEngine = productSearchEngine;
+        this.productSuggestIndex = productSuggestIndex;
+        this.productCatalogCache = productCatalogCache;
     }
 
     /**
@@ -35,9 +68,11 @@ public class ProductService {
      * @return A list of ProductDto.
      */
     public List<ProductDto> findAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return productCatalogCache.getListing("all", ProductCatalogCache.ListingKind.CATALOG,
+                () -> productRepository.findAll().stream()
+                        .map(this::convertToDto)
+                        .collect(Collectors.toList()),
+                ProductService::idsOf);
     }
 
     /**
@@ -46,8 +81,33 @@ public class ProductService {
      * @return A Page of ProductDto.
      */
     public Page<ProductDto> findAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable)
-                .map(this::convertToDto);
+        return productCatalogCache.getListing("page:" + pageKey(pageable), ProductCatalogCache.ListingKind.CATALOG,
+                () -> productRepository.findAll(pageable).map(this::convertToDto),
+                page -> idsOf(page.getContent()));
+    }
+
+    /**
+     * One cursor page of the catalog in ID order. Seeks past the cursor's product ID instead of
+     * skipping rows, and runs no COUNT query, so deep pages cost the same as the first.
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param size The page size, capped at 100.
+     * @return The page, with nextCursor set when more products follow.
+     * @throws IllegalArgumentException if the cursor is not a product cursor.
+     */
+    public ProductPageResponse findProductsAfter(String cursor, int size) {
+        long afterId = cursor == null || cursor.isBlank() ? 0L : PageCursors.decodeProduct(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        return productCatalogCache.getListing("after:" + afterId + ":" + pageSize, ProductCatalogCache.ListingKind.CATALOG,
+                () -> {
+                    Slice<ProductDto> slice = productRepository.findSliceAfter(afterId, PageRequest.of(0, pageSize))
+                            .map(this::convertToDto);
+                    List<ProductDto> products = slice.getContent();
+                    String nextCursor = slice.hasNext() && !products.isEmpty()
+                            ? PageCursors.encodeProduct(products.get(products.size() - 1).getId())
+                            : null;
+                    return new ProductPageResponse(products, pageSize, nextCursor);
+                },
+                response -> idsOf(response.getProducts()));
     }
 
     /**
@@ -56,7 +116,7 @@ public class ProductService {
      * @return An Optional containing the ProductDto if found.
      */
     public Optional<ProductDto> getProductDtoById(Long id) {
-        return productRepository.findById(id).map(this::convertToDto);
+        return productCatalogCache.getProduct(id, () -> productRepository.findById(id).map(this::convertToDto));
     }
 
     /**
@@ -68,6 +128,17 @@ public class ProductService {
         return productRepository.findById(id);
     }
 
+    /**
+     * Retrieves several Product entities with one query, keyed by ID. Unknown IDs are absent.
+     */
+    public Map<Long, Product> getProductEntitiesByIds(Collection<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+
     /**
      * Saves a product (either creates a new one or updates an existing one).
      * @param productDto The ProductDto to save.
@@ -92,7 +163,11 @@ public class ProductService {
         product.setPrice(productDto.getPrice());
         product.setPurchasePrice(productDto.getPurchasePrice());
         product.setImageUrl(productDto.getImageUrl());
-        product.setStockQuantity(productDto.getStockQuantity());
+        if (isHotStock(product)) {
+            productStockShardService.setTotal(product.getId(), productDto.getStockQuantity(), defaultShardCount);
+        } else {
+            product.setStockQuantity(productDto.getStockQuantity());
+        }
         product.setRating(productDto.getRating());
         product.setOldPrice(productDto.getOldPrice());
         product.setDiscountPercentage(productDto.getDiscountPercentage());
@@ -100,6 +175,14 @@ public class ProductService {
         product.setCategory(productDto.getCategory());
 
         Product savedProduct = productRepository.save(product);
+        stockReservationEngine.onStockSet(savedProduct.getId(), productDto.getStockQuantity());
+        productSearchEngine.indexAfterCommit(savedProduct);
+        productSuggestIndex.indexAfterCommit(savedProduct);
+        if (productDto.getId() == null) {
+            productCatalogCache.evictAllListingsAfterCommit(savedProduct.getId());
+        } else {
+            productCatalogCache.evictProductAfterCommit(savedProduct.getId(), true);
+        }
         return convertToDto(savedProduct);
     }
 
@@ -128,7 +211,11 @@ public class ProductService {
             product.setImageUrl(updateDto.getImageUrl());
         }
         if (updateDto.getStockQuantity() != null) {
-            product.setStockQuantity(updateDto.getStockQuantity());
+            if (isHotStock(product)) {
+                productStockShardService.setTotal(id, updateDto.getStockQuantity(), defaultShardCount);
+            } else {
+                product.setStockQuantity(updateDto.getStockQuantity());
+            }
         }
         if (updateDto.getRating() != null) {
             product.setRating(updateDto.getRating());
@@ -147,6 +234,14 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(product);
+        productSearchEngine.indexAfterCommit(updatedProduct);
+        productSuggestIndex.indexAfterCommit(updatedProduct);
+        if (updateDto.getStockQuantity() != null) {
+            stockReservationEngine.onStockSet(updatedProduct.getId(), updateDto.getStockQuantity());
+        }
+        boolean textChanged = updateDto.getName() != null || updateDto.getDescription() != null
+                || updateDto.getCategory() != null;
+        productCatalogCache.evictProductAfterCommit(updatedProduct.getId(), textChanged);
         return convertToDto(updatedProduct);
     }
 
@@ -170,7 +265,57 @@ public class ProductService {
         if (!productRepository.existsById(id)) {
             throw new RuntimeException("Product not found with ID: " + id);
         }
+        productStockShardService.deleteShards(id);
         productRepository.deleteById(id);
+        productSearchEngine.removeAfterCommit(id);
+        productSuggestIndex.removeAfterCommit(id);
+        productCatalogCache.evictAllListingsAfterCommit(id);
+    }
+
+    /**
+     * Switches a product in or out of hot-stock mode.
+     * Enabling splits the current stock across shard rows and zeroes the product's own counter;
+     * disabling sums the shards back into the product row and removes them.
+     * @param id The ID of the product.
+     * @param enabled Whether hot-stock mode should be on.
+     * @param shardCount Number of shards when enabling, or null for the configured default.
+     * @return The updated ProductDto.
+     * @throws RuntimeException if the product is not found.
+     */
+    @Transactional
+    public ProductDto setHotStockMode(Long id, boolean enabled, Integer shardCount) {
+        Product product = productRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
+
+        int stock = isHotStock(product)
+                ? productStockShardService.collapseShards(id)
+                : (product.getStockQuantity() != null ? product.getStockQuantity() : 0);
+
+        if (enabled) {
+            productStockShardService.createShards(id, stock, shardCount != null ? shardCount : defaultShardCount);
+            product.setStockQuantity(0);
+        } else {
+            product.setStockQuantity(stock);
+        }
+        product.setHotStock(enabled);
+
+        Product savedProduct = productRepository.save(product);
+        productCatalogCache.evictStockAfterCommit(List.of(id));
+        return convertToDto(savedProduct);
+    }
+
+    /**
+     * Current stock of a product, summing its shards when it is in hot-stock mode.
+     */
+    public int getStockQuantity(Product product) {
+        if (isHotStock(product)) {
+            return productStockShardService.getTotal(product.getId());
+        }
+        return product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+    }
+
+    private boolean isHotStock(Product product) {
+        return Boolean.TRUE.equals(product.getHotStock());
     }
 
     /**
@@ -186,7 +331,8 @@ public class ProductService {
         dto.setPrice(product.getPrice());
         dto.setPurchasePrice(product.getPurchasePrice());
         dto.setImageUrl(product.getImageUrl());
-        dto.setStockQuantity(product.getStockQuantity());
+        dto.setStockQuantity(getStockQuantity(product));
+        dto.setHotStock(isHotStock(product));
         dto.setRating(product.getRating());
         dto.setOldPrice(product.getOldPrice());
         dto.setDiscountPercentage(product.getDiscountPercentage());
@@ -198,44 +344,185 @@ public class ProductService {
     }
 
     /**
-     * Searches for products by a given search term in their name or description (case-insensitive).
+     * Searches for products by a given search term in their name, category or description (case-insensitive),
+     * best match first. Uses the search index when it is ready, retrying with typo tolerance if nothing
+     * matches as typed; otherwise a LIKE query on name and description.
      * @param searchTerm The term to search for.
      * @return A list of matching ProductDto.
      */
     public List<ProductDto> searchProducts(String searchTerm) {
-        return productRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(searchTerm, searchTerm).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return productCatalogCache.getListing("search:" + normalizeSearchKey(searchTerm), ProductCatalogCache.ListingKind.SEARCH,
+                () -> {
+                    if (productSearchEngine.isReady()) {
+                        return findInOrder(searchIndex(searchTerm));
+                    }
+                    return productRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(searchTerm, searchTerm).stream()
+                            .map(this::convertToDto)
+                            .collect(Collectors.toList());
+                },
+                ProductService::idsOf);
     }
 
-    // In ProductService.java
-
+    /**
+     * One page of search results; only the products on the page are read from the database
+     * when the search index is ready.
+     */
     public Page<ProductDto> searchProducts(String searchTerm, Pageable pageable) {
-        return productRepository.searchByNameOrDescription(searchTerm, pageable)
-                .map(this::convertToDto);
+        String key = "search:" + normalizeSearchKey(searchTerm) + ":" + pageKey(pageable);
+        return productCatalogCache.getListing(key, ProductCatalogCache.ListingKind.SEARCH,
+                () -> {
+                    if (productSearchEngine.isReady()) {
+                        List<Long> ids = searchIndex(searchTerm);
+                        int from = (int) Math.min(pageable.getOffset(), ids.size());
+                        int to = Math.min(from + pageable.getPageSize(), ids.size());
+                        return new PageImpl<>(findInOrder(ids.subList(from, to)), pageable, ids.size());
+                    }
+                    return productRepository.searchByNameOrDescription(searchTerm, pageable)
+                            .map(this::convertToDto);
+                },
+                page -> idsOf(page.getContent()));
+    }
+
+    /**
+     * Autocomplete suggestions for a prefix of a product name or category, served from memory.
+     */
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        return productSuggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Search and suggestion index sizes and query counters for the admin dashboard.
+     */
+    public Map<String, Object> getSearchStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(productSearchEngine.getStats());
+        stats.put("suggest", productSuggestIndex.getStats());
+        return stats;
+    }
+
+    /**
+     * Catalog cache size and hit/miss counters for the admin dashboard.
+     */
+    public Map<String, Object> getCatalogCacheStats() {
+        return productCatalogCache.getStats();
+    }
+
+    // Exact matches, or misspelt ones when there are none
+    private List<Long> searchIndex(String searchTerm) {
+        List<Long> ids = productSearchEngine.search(searchTerm);
+        return ids.isEmpty() ? productSearchEngine.searchFuzzy(searchTerm) : ids;
+    }
+
+    // Page number, size and sort, so each distinct page request gets its own cache entry
+    private static String pageKey(Pageable pageable) {
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+
+    // Case and surrounding/repeated whitespace do not change search results, so they share an entry
+    private static String normalizeSearchKey(String searchTerm) {
+        return searchTerm.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> idsOf(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getId).collect(Collectors.toSet());
+    }
+
+    // Products by ID in the given order; IDs deleted since they were indexed are skipped
+    private List<ProductDto> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> products = getProductEntitiesByIds(ids);
+        List<ProductDto> dtos = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                dtos.add(convertToDto(product));
+            }
+        }
+        return dtos;
     }
 
     /**
      * Get available stock for a product (considering items in active carts)
      */
     public int getAvailableStock(Long productId) {
+        if (stockReservationEngine.isEnabled()) {
+            // Served from memory; the engine counts holds rather than the ledger
+            return Math.max(0, stockReservationEngine.getAvailable(productId));
+        }
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-        
-        if (product.getStockQuantity() == null) {
+        return Math.max(0, getAvailableStock(product));
+    }
+
+    /**
+     * Stock minus the quantity reserved in active carts, read from the reservation ledger.
+     * May be negative if carts hold more than is left on the shelf.
+     */
+    public int getAvailableStock(Product product) {
+        if (!isHotStock(product) && product.getStockQuantity() == null) {
             return 0;
         }
-        
-        // Get total quantity of this product in all active carts
-        int totalInCarts = cartItemRepository.findAll().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .filter(item -> item.getCart().getStatus() == Cart.CartStatus.ACTIVE)
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-        
-        return Math.max(0, product.getStockQuantity() - totalInCarts);
+        return getStockQuantity(product) - stockReservationService.getReservedQuantity(product.getId());
+    }
+
+    /**
+     * Batched form of {@link #getAvailableStock(Product)}: one query for the reservation ledger
+     * and one for the shard totals of any hot products, whatever the number of products.
+     */
+    public Map<Long, Integer> getAvailableStock(Collection<Product> products) {
+        Map<Long, Integer> available = new HashMap<>();
+        if (products.isEmpty()) {
+            return available;
+        }
+        Map<Long, Integer> reserved = stockReservationService.getReservedQuantities(products.stream()
+                .map(Product::getId)
+                .collect(Collectors.toSet()));
+        Set<Long> hotIds = products.stream()
+                .filter(this::isHotStock)
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Integer> shardTotals = productStockShardService.getTotals(hotIds);
+        for (Product product : products) {
+            int stock = isHotStock(product)
+                    ? shardTotals.getOrDefault(product.getId(), 0)
+                    : (product.getStockQuantity() != null ? product.getStockQuantity() : 0);
+            available.put(product.getId(), stock - reserved.getOrDefault(product.getId(), 0));
+        }
+        return available;
     }
     
+    /**
+     * Deducts stock for every product of a checkout with one guarded UPDATE per product.
+     * Rows are updated in ascending product ID order so concurrent checkouts always take
+     * row locks in the same order and cannot deadlock each other. Hot products are
+     * deducted from one of their stock shards instead of the product row.
+     * @param quantitiesByProduct Quantity to deduct, keyed by product ID.
+     * @throws IllegalArgumentException if any product does not have enough stock left;
+     *         the caller's transaction is rolled back so no partial deduction survives.
+     */
+    @Transactional
+    public void deductStock(Map<Long, Integer> quantitiesByProduct) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantitiesByProduct).entrySet()) {
+            Long productId = entry.getKey();
+            int quantity = entry.getValue();
+            Optional<Product> product = productRepository.findById(productId);
+            boolean deducted = product.isPresent() && isHotStock(product.get())
+                    ? productStockShardService.decrement(productId, quantity)
+                    : productRepository.decrementStock(productId, quantity, now) == 1;
+            if (!deducted) {
+                String name = product.map(Product::getName).orElse("#" + productId);
+                int available = product.isPresent() && isHotStock(product.get())
+                        ? productStockShardService.getTotal(productId)
+                        : productRepository.findStockQuantityById(productId).orElse(0);
+                throw new IllegalArgumentException(
+                        "Insufficient stock for product: " + name + ". Available: " + available + ", Requested: " + quantity);
+            }
+        }
+        productCatalogCache.evictStockAfterCommit(quantitiesByProduct.keySet());
+    }
+
     /**
      * Restore stock for a product (used when order is cancelled)
      */
@@ -243,10 +530,12 @@ public class ProductService {
     public void restoreStock(Long productId, int quantity) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-        
-        if (product.getStockQuantity() != null) {
-            product.setStockQuantity(product.getStockQuantity() + quantity);
-            productRepository.save(product);
+        if (isHotStock(product)) {
+            productStockShardService.increment(productId, quantity);
+        } else {
+            productRepository.incrementStock(productId, quantity, LocalDateTime.now());
         }
+        stockReservationEngine.onStockChanged(productId, quantity);
+        productCatalogCache.evictStockAfterCommit(List.of(productId));
     }
 }
\ No newline at end of file
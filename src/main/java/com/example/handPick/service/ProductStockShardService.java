@@ -0,0 +1,179 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.ProductStockShard;
+import com.example.handPick.repository.ProductStockShardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock counters for products in hot-stock mode. A hot product's stock is split across
+ * N rows in product_stock_shards so that concurrent checkouts lock different rows instead
+ * of serializing on the single products row.
+ */
+@Service
+public class ProductStockShardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductStockShardService.class);
+
+    private final ProductStockShardRepository shardRepository;
+
+    @Autowired
+    public ProductStockShardService(ProductStockShardRepository shardRepository) {
+        this.shardRepository = shardRepository;
+    }
+
+    /**
+     * Splits a stock quantity evenly across shardCount new shard rows.
+     */
+    @Transactional
+    public void createShards(Long productId, int stockQuantity, int shardCount) {
+        shardRepository.deleteByProductId(productId);
+        shardRepository.saveAll(distribute(productId, stockQuantity, shardCount));
+        logger.info("Product {} split into {} stock shard(s) holding {}", productId, shardCount, stockQuantity);
+    }
+
+    /**
+     * Removes all shards of a product and returns the stock they held.
+     */
+    @Transactional
+    public int collapseShards(Long productId) {
+        int total = shardRepository.findForUpdate(productId).stream()
+                .mapToInt(ProductStockShard::getQuantity)
+                .sum();
+        shardRepository.deleteByProductId(productId);
+        logger.info("Product {} stock shards collapsed back into {}", productId, total);
+        return total;
+    }
+
+    /**
+     * Replaces a hot product's stock with a new absolute total, keeping the shard count.
+     * A hot product that has lost its shard rows gets shardCountIfNone new ones.
+     */
+    @Transactional
+    public void setTotal(Long productId, int stockQuantity, int shardCountIfNone) {
+        List<ProductStockShard> shards = shardRepository.findForUpdate(productId);
+        if (shards.isEmpty()) {
+            shardRepository.saveAll(distribute(productId, stockQuantity, Math.max(1, shardCountIfNone)));
+            logger.warn("Hot product {} had no stock shards; recreated {} holding {}", productId, shardCountIfNone, stockQuantity);
+            return;
+        }
+        List<ProductStockShard> balanced = distribute(productId, stockQuantity, shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setQuantity(balanced.get(i).getQuantity());
+        }
+        shardRepository.saveAll(shards);
+    }
+
+    /**
+     * Summed stock of a hot product.
+     */
+    public int getTotal(Long productId) {
+        return (int) shardRepository.sumQuantity(productId);
+    }
+
+    /**
+     * Summed stock for several hot products with one grouped query.
+     */
+    public Map<Long, Integer> getTotals(Collection<Long> productIds) {
+        Map<Long, Integer> totals = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return totals;
+        }
+        for (Object[] row : shardRepository.sumQuantityByProduct(productIds)) {
+            totals.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return totals;
+    }
+
+    /**
+     * Deducts stock from a hot product.
+     * Picks a random shard that held enough in an unlocked snapshot and tries a guarded decrement on it.
+     * Otherwise it locks shards and drains across them. Shard row locks are only ever taken in ascending
+     * index order, so concurrent decrements cannot deadlock: with no shard able to cover the quantity the
+     * drain starts from shard 0, and after losing a race for the chosen shard (whose row lock this
+     * transaction now holds) it continues only upward from that shard. In that case the checkout can be
+     * refused while lower shards still hold stock; the customer retries against a fresh snapshot.
+     * @return false if the shards together do not hold the requested quantity.
+     */
+    @Transactional
+    public boolean decrement(Long productId, int quantity) {
+        List<Object[]> snapshot = shardRepository.findShardQuantities(productId);
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        List<Integer> candidates = new ArrayList<>();
+        for (Object[] row : snapshot) {
+            if (((Number) row[1]).intValue() >= quantity) {
+                candidates.add((Integer) row[0]);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return drainFrom(productId, 0, quantity);
+        }
+        int shardIndex = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        if (shardRepository.decrementShard(productId, shardIndex, quantity) == 1) {
+            return true;
+        }
+        return drainFrom(productId, shardIndex, quantity);
+    }
+
+    /**
+     * Returns stock to a randomly chosen shard of a hot product.
+     */
+    @Transactional
+    public void increment(Long productId, int quantity) {
+        List<Integer> indexes = shardRepository.findShardIndexes(productId);
+        if (indexes.isEmpty()) {
+            throw new RuntimeException("No stock shards for product " + productId);
+        }
+        int shardIndex = indexes.get(ThreadLocalRandom.current().nextInt(indexes.size()));
+        shardRepository.incrementShard(productId, shardIndex, quantity);
+    }
+
+    @Transactional
+    public void deleteShards(Long productId) {
+        shardRepository.deleteByProductId(productId);
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    // Locks the shards from fromIndex upward and takes the quantity across them
+    private boolean drainFrom(Long productId, int fromIndex, int quantity) {
+        List<ProductStockShard> shards = shardRepository.findForUpdateFrom(productId, fromIndex);
+        int total = shards.stream().mapToInt(ProductStockShard::getQuantity).sum();
+        if (total < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (ProductStockShard shard : shards) {
+            int take = Math.min(shard.getQuantity(), remaining);
+            shard.setQuantity(shard.getQuantity() - take);
+            remaining -= take;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        shardRepository.saveAll(shards);
+        return true;
+    }
+
+    private List<ProductStockShard> distribute(Long productId, int stockQuantity, int shardCount) {
+        List<ProductStockShard> shards = new ArrayList<>(shardCount);
+        int base = stockQuantity / shardCount;
+        int remainder = stockQuantity % shardCount;
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ProductStockShard(productId, i, base + (i < remainder ? 1 : 0)));
+        }
+        return shards;
+    }
+}
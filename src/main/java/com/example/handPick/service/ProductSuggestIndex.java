@@ -0,0 +1,488 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.ProductSuggestionDto;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.Product;
+import com.example.handPick.repository.OrderItemRepository;
+import com.example.handPick.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Autocomplete over product names and categories, answered from memory without touching the database.
+ * Every word start of a name or category is a key in a sorted array, so a prefix is one binary search
+ * followed by a scan of the matching range; the top suggestions are those with the most units sold
+ * (cancelled orders excluded). Readers use an immutable snapshot of the arrays; product changes produce
+ * a new snapshot by merging in just the affected entries. Sales figures are refreshed periodically.
+ */
+@Service
+public class ProductSuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String PRODUCT = "PRODUCT";
+    private static final String CATEGORY = "CATEGORY";
+    // Prefixes this short match a large share of the keys, so their results are kept per snapshot
+    private static final int CACHED_PREFIX_LENGTH = 2;
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${app.search.suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.suggest.max-limit:20}")
+    private int maxLimit;
+
+    @Value("${app.search.suggest.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    // Source of truth for building snapshots, with each product's current suggestion; guarded by this
+    private final Map<Long, ProductEntry> products = new HashMap<>();
+    private final Map<Long, Target> productTargets = new HashMap<>();
+    private final Map<String, CategoryEntry> categories = new HashMap<>();
+    private Map<Long, Long> unitsSold = new HashMap<>();
+    // Product changes committed while a rebuild is reading the database; guarded by this
+    private List<ProductEntry> replay;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean ready = false;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong lookupNanos = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+
+    @Autowired
+    public ProductSuggestIndex(ProductRepository productRepository, OrderItemRepository orderItemRepository) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Up to limit product names and categories with a word starting with the prefix, most units sold first.
+     * Empty while the index is not loaded.
+     */
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (!isReady() || key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        Snapshot current = snapshot;
+        List<Target> ranked = key.length() <= CACHED_PREFIX_LENGTH
+                ? current.shortPrefixTops.computeIfAbsent(key, k -> current.top(k, maxLimit))
+                : current.top(key, maxLimit);
+        List<ProductSuggestionDto> suggestions = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Target target : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            suggestions.add(new ProductSuggestionDto(target.text(), target.type(), target.productId(), target.unitsSold()));
+        }
+        lookups.incrementAndGet();
+        lookupNanos.addAndGet(System.nanoTime() - started);
+        return suggestions;
+    }
+
+    /**
+     * Adds or replaces a product's suggestions once the current transaction commits.
+     */
+    public void indexAfterCommit(Product product) {
+        if (!enabled) {
+            return;
+        }
+        ProductEntry entry = new ProductEntry(product.getId(), product.getName(), product.getCategory());
+        afterCommit(() -> apply(entry));
+    }
+
+    /**
+     * Removes a product's suggestions once the current transaction commits.
+     */
+    public void removeAfterCommit(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> apply(new ProductEntry(productId, null, null)));
+    }
+
+    /**
+     * Loads the index once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reloads products and their sales so suggestion ranking follows what is selling.
+     */
+    @Scheduled(fixedDelayString = "${app.search.suggest.refresh-interval-ms:600000}",
+            initialDelayString = "${app.search.suggest.refresh-interval-ms:600000}")
+    public void scheduledRebuild() {
+        if (isReady()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reads sales totals and every product's name and category, then swaps in a new snapshot.
+     * Product changes committed meanwhile are applied on top.
+     */
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        synchronized (this) {
+            if (replay != null) {
+                return; // Already rebuilding
+            }
+            replay = new ArrayList<>();
+        }
+
+        Map<Long, Long> sold = new HashMap<>();
+        List<ProductEntry> loaded = new ArrayList<>();
+        try {
+            for (Object[] row : orderItemRepository.sumQuantityByProductExcludingStatus(Order.OrderStatus.CANCELLED)) {
+                sold.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            long afterId = 0;
+            List<Object[]> rows;
+            do {
+                rows = productRepository.findNameAndCategoryAfter(afterId, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    afterId = (Long) row[0];
+                    loaded.add(new ProductEntry(afterId, (String) row[1], (String) row[2]));
+                }
+            } while (rows.size() == loadBatchSize);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                replay = null;
+            }
+            logger.error("Could not rebuild the product suggestion index: {}", e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            products.clear();
+            productTargets.clear();
+            categories.clear();
+            unitsSold = sold;
+            for (ProductEntry entry : loaded) {
+                products.put(entry.productId(), entry);
+                addToCategory(entry);
+            }
+            List<Entry> entries = new ArrayList<>();
+            for (ProductEntry entry : products.values()) {
+                addEntries(entries, productTarget(entry));
+            }
+            for (CategoryEntry category : categories.values()) {
+                addEntries(entries, categoryTarget(category));
+            }
+            snapshot = Snapshot.EMPTY.merge(List.of(), entries);
+            List<ProductEntry> committedMeanwhile = replay;
+            replay = null;
+            committedMeanwhile.forEach(this::applyLocked);
+            ready = true;
+        }
+        logger.info("Product suggestion index loaded {} product(s), {} categor(ies), {} key(s) in {} ms",
+                loaded.size(), categories.size(), snapshot.keys.length, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Index size and lookup timings for the admin dashboard.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", isReady());
+        synchronized (this) {
+            stats.put("products", products.size());
+            stats.put("categories", categories.size());
+        }
+        stats.put("keys", snapshot.keys.length);
+        long count = lookups.get();
+        stats.put("lookups", count);
+        stats.put("avgLookupMicros", count > 0 ? lookupNanos.get() / count / 1000 : 0);
+        stats.put("updates", updates.get());
+        return stats;
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    // Best first: most units sold, then shorter text, then alphabetical
+    private static final Comparator<Target> RANKING = Comparator
+            .comparingLong(Target::unitsSold).reversed()
+            .thenComparingInt((Target target) -> target.text().length())
+            .thenComparing(Target::text)
+            .thenComparing(Target::type);
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return NON_WORD.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private synchronized void apply(ProductEntry change) {
+        if (replay != null) {
+            replay.add(change);
+        }
+        applyLocked(change);
+        updates.incrementAndGet();
+    }
+
+    // Replaces the product's entries and those of the categories it leaves or joins; name null means deleted
+    private void applyLocked(ProductEntry change) {
+        List<Target> removed = new ArrayList<>();
+        Set<String> affectedCategories = new LinkedHashSet<>();
+        ProductEntry previous = change.name() != null
+                ? products.put(change.productId(), change)
+                : products.remove(change.productId());
+        if (previous != null) {
+            Target previousTarget = productTargets.remove(change.productId());
+            if (previousTarget != null) {
+                removed.add(previousTarget);
+            }
+            affectedCategories.add(categoryKey(previous.category()));
+        }
+        if (change.name() != null) {
+            affectedCategories.add(categoryKey(change.category()));
+        }
+        affectedCategories.remove(null);
+        for (String key : affectedCategories) {
+            CategoryEntry category = categories.get(key);
+            if (category != null && category.target != null) {
+                removed.add(category.target);
+            }
+        }
+
+        if (previous != null) {
+            removeFromCategory(previous);
+        }
+        List<Entry> added = new ArrayList<>();
+        if (change.name() != null) {
+            addToCategory(change);
+            addEntries(added, productTarget(change));
+        }
+        for (String key : affectedCategories) {
+            CategoryEntry category = categories.get(key);
+            if (category != null) {
+                addEntries(added, categoryTarget(category));
+            }
+        }
+        snapshot = snapshot.merge(removed, added);
+    }
+
+    private void addToCategory(ProductEntry product) {
+        String key = categoryKey(product.category());
+        if (key != null) {
+            CategoryEntry category = categories.computeIfAbsent(key, k -> new CategoryEntry(product.category()));
+            category.products++;
+            category.unitsSold += unitsSold.getOrDefault(product.productId(), 0L);
+        }
+    }
+
+    private void removeFromCategory(ProductEntry product) {
+        String key = categoryKey(product.category());
+        CategoryEntry category = key != null ? categories.get(key) : null;
+        if (category != null) {
+            category.unitsSold -= unitsSold.getOrDefault(product.productId(), 0L);
+            if (--category.products == 0) {
+                categories.remove(key);
+            }
+        }
+    }
+
+    private static String categoryKey(String category) {
+        String key = normalize(category);
+        return key.isEmpty() ? null : key;
+    }
+
+    // A fresh suggestion for the product, remembered so it can be removed again
+    private Target productTarget(ProductEntry product) {
+        Target target = new Target(product.name(), PRODUCT, product.productId(),
+                unitsSold.getOrDefault(product.productId(), 0L));
+        productTargets.put(product.productId(), target);
+        return target;
+    }
+
+    private static Target categoryTarget(CategoryEntry category) {
+        category.target = new Target(category.text, CATEGORY, null, category.unitsSold);
+        return category.target;
+    }
+
+    private static void addEntries(List<Entry> entries, Target target) {
+        for (String key : keysOf(target)) {
+            entries.add(new Entry(key, target));
+        }
+    }
+
+    // One key per word start: "green tea" is found by "gr" and by "te"
+    private static Set<String> keysOf(Target target) {
+        String text = normalize(target.text());
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            if (i == 0 || text.charAt(i - 1) == ' ') {
+                keys.add(text.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record ProductEntry(Long productId, String name, String category) {}
+
+    private static final class CategoryEntry {
+        private final String text;
+        private int products;
+        private long unitsSold;
+        private Target target;
+
+        private CategoryEntry(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * One suggestion. Instances are compared by identity, so the same product reached through two
+     * of its words is recognised as one.
+     */
+    record Target(String text, String type, Long productId, long unitsSold) {
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    record Entry(String key, Target target) {}
+
+    /**
+     * Keys in ascending order with the suggestion each one leads to. Never modified once published;
+     * results for short prefixes are cached with the snapshot and dropped along with it.
+     */
+    static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new Target[0]);
+
+        final String[] keys;
+        final Target[] targets;
+        private final Map<String, List<Target>> shortPrefixTops = new ConcurrentHashMap<>();
+
+        private Snapshot(String[] keys, Target[] targets) {
+            this.keys = keys;
+            this.targets = targets;
+        }
+
+        int firstAtOrAfter(String key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        // The best k targets with a key starting with the prefix; a target reached through several keys counts once
+        List<Target> top(String prefix, int k) {
+            PriorityQueue<Target> best = new PriorityQueue<>(k + 1, RANKING.reversed());
+            Set<Target> seen = new HashSet<>();
+            for (int i = firstAtOrAfter(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+                Target target = targets[i];
+                if (best.size() == k && RANKING.compare(target, best.peek()) >= 0) {
+                    continue;
+                }
+                if (seen.add(target)) {
+                    best.add(target);
+                    if (best.size() > k) {
+                        best.poll();
+                    }
+                }
+            }
+            List<Target> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+            return ranked;
+        }
+
+        // A new snapshot without the entries of the removed targets, plus the added entries. Only the
+        // affected positions are looked up; the unchanged runs between them are block-copied.
+        Snapshot merge(List<Target> removed, List<Entry> added) {
+            List<Integer> removedAt = new ArrayList<>();
+            for (Target target : removed) {
+                for (String key : keysOf(target)) {
+                    for (int i = firstAtOrAfter(key); i < keys.length && keys[i].equals(key); i++) {
+                        if (targets[i] == target) {
+                            removedAt.add(i);
+                        }
+                    }
+                }
+            }
+            removedAt.sort(null);
+            added.sort(Comparator.comparing(Entry::key));
+
+            String[] newKeys = new String[keys.length - removedAt.size() + added.size()];
+            Target[] newTargets = new Target[newKeys.length];
+            int src = 0;
+            int dst = 0;
+            int r = 0;
+            int a = 0;
+            while (true) {
+                int nextRemoved = r < removedAt.size() ? removedAt.get(r) : keys.length;
+                int nextAdded = a < added.size() ? firstAtOrAfter(added.get(a).key()) : keys.length;
+                int stop = Math.min(nextRemoved, nextAdded);
+                System.arraycopy(keys, src, newKeys, dst, stop - src);
+                System.arraycopy(targets, src, newTargets, dst, stop - src);
+                dst += stop - src;
+                src = stop;
+                if (a < added.size() && nextAdded == src) {
+                    newKeys[dst] = added.get(a).key();
+                    newTargets[dst++] = added.get(a++).target();
+                } else if (r < removedAt.size() && nextRemoved == src) {
+                    src++;
+                    r++;
+                } else {
+                    break;
+                }
+            }
+            return new Snapshot(newKeys, newTargets);
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Cart;
+import com.example.handPick.repository.CartItemRepository;
+import com.example.handPick.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Optional in-process stock reservation engine for flash sales.
+ * Keeps stock and held quantities per product in primitive maps split across lock stripes,
+ * so add-to-cart availability checks never query MySQL. Each user's hold on a product
+ * expires after a configurable TTL. The database stays authoritative: the engine is rebuilt
+ * from it at startup, stock levels are re-read periodically, and checkout still deducts
+ * stock with guarded updates.
+ */
+@Service
+public class StockReservationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationEngine.class);
+
+    private final ProductRepository productRepository;
+    private final CartItemRepository cartItemRepository;
+
+    @Value("${app.stock.engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.stock.engine.hold-ttl-ms:900000}")
+    private long holdTtlMs;
+
+    @Value("${app.stock.engine.stripes:64}")
+    private int stripeCount;
+
+    private Stripe[] stripes;
+    private int stripeShift;
+    private volatile boolean ready = false;
+
+    // Stamps applied stock changes so a reconcile can tell which products changed after it read the database
+    private final AtomicInteger changeSequence = new AtomicInteger();
+    // Key of the transaction-bound map of holds to restore on rollback
+    private final Object rollbackResourceKey = new Object();
+
+    @Autowired
+    public StockReservationEngine(ProductRepository productRepository, CartItemRepository cartItemRepository) {
+        this.productRepository = productRepository;
+        this.cartItemRepository = cartItemRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        // Round up to a power of two so the stripe index is a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripeShift = 64 - Integer.numberOfTrailingZeros(size);
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * True when the engine is switched on and has been loaded from the database.
+     */
+    public boolean isEnabled() {
+        return enabled && ready;
+    }
+
+    /**
+     * Sets the user's hold on a product to the given total quantity.
+     * Decreasing a hold always succeeds; increasing it succeeds only if enough unheld stock remains.
+     * @return false if the product is unknown or there is not enough stock for the increase.
+     */
+    public boolean hold(long userId, long productId, int totalQuantity) {
+        Stripe stripe = stripeFor(productId);
+        long now = System.currentTimeMillis();
+        stripe.lock.lock();
+        try {
+            if (!stripe.stock.containsKey(productId)) {
+                return false;
+            }
+            HoldKey key = new HoldKey(productId, userId);
+            Hold existing = stripe.holds.get(key);
+            int current = 0;
+            if (existing != null) {
+                if (existing.expiresAt <= now) {
+                    stripe.held.addTo(productId, -existing.quantity);
+                    stripe.holds.remove(key);
+                } else {
+                    current = existing.quantity;
+                }
+            }
+
+            int delta = totalQuantity - current;
+            if (delta > 0 && stripe.stock.get(productId, 0) - stripe.held.get(productId, 0) < delta) {
+                return false;
+            }
+            stripe.held.addTo(productId, delta);
+            if (totalQuantity <= 0) {
+                stripe.holds.remove(key);
+            } else {
+                stripe.holds.put(key, new Hold(totalQuantity, now + holdTtlMs));
+            }
+            restoreOnRollback(userId, productId, current);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops any hold the user has on a product.
+     */
+    public void releaseHold(long userId, long productId) {
+        hold(userId, productId, 0);
+    }
+
+    /**
+     * Stock not held by anyone. Products the engine does not know return 0.
+     */
+    public int getAvailable(long productId) {
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            return stripe.stock.get(productId, 0) - stripe.held.get(productId, 0);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Stock available to one user: unheld stock plus whatever that user already holds.
+     */
+    public int getAvailableFor(long userId, long productId) {
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            Hold hold = stripe.holds.get(new HoldKey(productId, userId));
+            int own = hold != null && hold.expiresAt > System.currentTimeMillis() ? hold.quantity : 0;
+            return stripe.stock.get(productId, 0) - stripe.held.get(productId, 0) + own;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Converts a user's holds into sold stock once the checkout transaction has committed.
+     */
+    public void onCheckoutCommitted(long userId, Map<Long, Integer> quantitiesByProduct) {
+        if (!isEnabled()) {
+            return;
+        }
+        Map<Long, Integer> snapshot = new HashMap<>(quantitiesByProduct);
+        snapshot.forEach((productId, quantity) -> {
+            releaseAfterCommit(userId, productId);
+            changeStockAfterCommit(productId, stock -> stock.addTo(productId, -quantity));
+        });
+    }
+
+    /**
+     * Records a stock level change (admin edit, cancellation restock) once the transaction commits.
+     */
+    public void onStockChanged(long productId, int delta) {
+        if (!isEnabled()) {
+            return;
+        }
+        changeStockAfterCommit(productId, stock -> stock.addTo(productId, delta));
+    }
+
+    /**
+     * Records an absolute stock level (product created or edited) once the transaction commits.
+     */
+    public void onStockSet(long productId, int stockQuantity) {
+        if (!isEnabled()) {
+            return;
+        }
+        changeStockAfterCommit(productId, stock -> stock.put(productId, stockQuantity));
+    }
+
+    /**
+     * Loads stock levels and the holds of every active cart from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> stockRows = productRepository.findAllStockQuantities();
+        List<Object[]> holdRows = cartItemRepository.sumQuantityByUserAndProductForCartStatus(Cart.CartStatus.ACTIVE);
+        long expiresAt = System.currentTimeMillis() + holdTtlMs;
+
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.stock.clear();
+                stripe.held.clear();
+                stripe.holds.clear();
+            }
+            for (Object[] row : stockRows) {
+                long productId = (Long) row[0];
+                stripeFor(productId).stock.put(productId, row[1] != null ? ((Number) row[1]).intValue() : 0);
+            }
+            for (Object[] row : holdRows) {
+                long userId = (Long) row[0];
+                long productId = (Long) row[1];
+                int quantity = ((Number) row[2]).intValue();
+                Stripe stripe = stripeFor(productId);
+                stripe.holds.put(new HoldKey(productId, userId), new Hold(quantity, expiresAt));
+                stripe.held.addTo(productId, quantity);
+            }
+            ready = true;
+        } finally {
+            unlockAll();
+        }
+        logger.info("Stock reservation engine loaded {} product(s) and {} cart hold(s)", stockRows.size(), holdRows.size());
+    }
+
+    /**
+     * Re-reads stock levels from the database so changes made outside the engine are picked up.
+     * Holds are kept as they are; they are the engine's own state. A product with a stock change
+     * still waiting to be applied after its commit, or applied since the database was read, is
+     * skipped: the value read may already include that change, and overwriting with it would
+     * count the change twice (or lose it). Skipped products are refreshed on the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.engine.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.stock.engine.reconcile-interval-ms:60000}")
+    public void reconcileStock() {
+        if (!isEnabled()) {
+            return;
+        }
+        int startedAt = changeSequence.get();
+        Map<Stripe, List<Object[]>> rowsByStripe = new IdentityHashMap<>();
+        for (Object[] row : productRepository.findAllStockQuantities()) {
+            rowsByStripe.computeIfAbsent(stripeFor((Long) row[0]), stripe -> new ArrayList<>()).add(row);
+        }
+
+        int changed = 0;
+        int skipped = 0;
+        for (Map.Entry<Stripe, List<Object[]>> entry : rowsByStripe.entrySet()) {
+            Stripe stripe = entry.getKey();
+            stripe.lock.lock();
+            try {
+                for (Object[] row : entry.getValue()) {
+                    long productId = (Long) row[0];
+                    int stock = row[1] != null ? ((Number) row[1]).intValue() : 0;
+                    if (stripe.pendingChanges.get(productId, 0) > 0
+                            || (stripe.lastChange.containsKey(productId)
+                                && stripe.lastChange.get(productId, 0) - startedAt > 0)) {
+                        skipped++;
+                    } else if (stripe.stock.get(productId, Integer.MIN_VALUE) != stock) {
+                        stripe.stock.put(productId, stock);
+                        changed++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (changed > 0 || skipped > 0) {
+            logger.info("Stock reservation engine refreshed stock for {} product(s), skipped {} with changes in flight",
+                    changed, skipped);
+        }
+    }
+
+    /**
+     * Expires holds whose TTL has passed, returning their quantity to the available pool.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.engine.sweep-interval-ms:30000}")
+    public void expireHolds() {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Map.Entry<HoldKey, Hold>> it = stripe.holds.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<HoldKey, Hold> entry = it.next();
+                    if (entry.getValue().expiresAt <= now) {
+                        stripe.held.addTo(entry.getKey().productId(), -entry.getValue().quantity);
+                        it.remove();
+                        expired++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (expired > 0) {
+            logger.debug("Expired {} cart hold(s)", expired);
+        }
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    /**
+     * Applies a stock change to the product's entry once the transaction commits. Until then the
+     * product counts as having a change in flight, which keeps reconcileStock from overwriting it.
+     */
+    private void changeStockAfterCommit(long productId, Consumer<LongIntMap> change) {
+        Stripe stripe = stripeFor(productId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyStockChange(stripe, productId, change);
+            return;
+        }
+        stripe.lock.lock();
+        try {
+            stripe.pendingChanges.addTo(productId, 1);
+        } finally {
+            stripe.lock.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyStockChange(stripe, productId, change);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                stripe.lock.lock();
+                try {
+                    stripe.pendingChanges.addTo(productId, -1);
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        });
+    }
+
+    private void applyStockChange(Stripe stripe, long productId, Consumer<LongIntMap> change) {
+        stripe.lock.lock();
+        try {
+            change.accept(stripe.stock);
+            stripe.lastChange.put(productId, changeSequence.incrementAndGet());
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void releaseAfterCommit(long userId, long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseHold(userId, productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseHold(userId, productId);
+            }
+        });
+    }
+
+    // Remembers each hold as it was before the transaction first changed it; a rollback restores those.
+    // Later changes in the same transaction must not overwrite the entry, or the rollback would only
+    // undo the last one.
+    private void restoreOnRollback(long userId, long productId, int previousQuantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<HoldKey, Integer> beforeTransaction =
+                (Map<HoldKey, Integer>) TransactionSynchronizationManager.getResource(rollbackResourceKey);
+        if (beforeTransaction == null) {
+            Map<HoldKey, Integer> bound = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(rollbackResourceKey, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(rollbackResourceKey);
+                    if (status == STATUS_ROLLED_BACK) {
+                        bound.forEach((key, quantity) -> hold(key.userId(), key.productId(), quantity));
+                    }
+                }
+            });
+            beforeTransaction = bound;
+        }
+        beforeTransaction.putIfAbsent(new HoldKey(productId, userId), previousQuantity);
+    }
+
+    private Stripe stripeFor(long productId) {
+        return stripes[stripeIndex(productId, stripeShift)];
+    }
+
+    /**
+     * Stripe of a product: the top bits of the product's hash. LongIntMap places keys by the low
+     * bits of the same hash, so these must differ; otherwise every key in a stripe would share its
+     * low bits and crowd into a few slots of the stripe's tables.
+     * @param stripeShift 64 minus log2 of the stripe count.
+     */
+    static int stripeIndex(long productId, int stripeShift) {
+        if (stripeShift == 64) {
+            return 0;
+        }
+        return (int) ((productId * 0x9E3779B97F4A7C15L) >>> stripeShift);
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final LongIntMap stock = new LongIntMap();
+        final LongIntMap held = new LongIntMap();
+        final Map<HoldKey, Hold> holds = new HashMap<>();
+        final LongIntMap pendingChanges = new LongIntMap(); // Committed-but-unapplied or uncommitted stock changes
+        final LongIntMap lastChange = new LongIntMap(); // Sequence number of the last applied stock change
+    }
+
+    private record HoldKey(long productId, long userId) {}
+
+    private record Hold(int quantity, long expiresAt) {}
+
+    /**
+     * Minimal open-addressing long to int map (no boxing). Not thread-safe; guarded by the stripe lock.
+     */
+    static final class LongIntMap {
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        int get(long key, int defaultValue) {
+            int slot = find(key);
+            return slot >= 0 ? values[slot] : defaultValue;
+        }
+
+        boolean containsKey(long key) {
+            return find(key) >= 0;
+        }
+
+        void put(long key, int value) {
+            int slot = find(key);
+            if (slot >= 0) {
+                values[slot] = value;
+                return;
+            }
+            insert(key, value);
+        }
+
+        void addTo(long key, int delta) {
+            int slot = find(key);
+            if (slot >= 0) {
+                values[slot] += delta;
+                return;
+            }
+            insert(key, delta);
+        }
+
+        void clear() {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+
+        /**
+         * Number of distinct home slots the keys hash to; near the key count when keys spread well.
+         */
+        int distinctHomeSlots() {
+            int mask = keys.length - 1;
+            boolean[] home = new boolean[keys.length];
+            int distinct = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot] && !home[mix(keys[slot]) & mask]) {
+                    home[mix(keys[slot]) & mask] = true;
+                    distinct++;
+                }
+            }
+            return distinct;
+        }
+
+        /**
+         * Average number of slots a lookup of a present key probes.
+         */
+        double meanProbeLength() {
+            int mask = keys.length - 1;
+            long probes = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot]) {
+                    probes += ((slot - (mix(keys[slot]) & mask)) & mask) + 1;
+                }
+            }
+            return size == 0 ? 0 : (double) probes / size;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            used[slot] = true;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Cart;
+import com.example.handPick.model.ProductReservation;
+import com.example.handPick.repository.CartItemRepository;
+import com.example.handPick.repository.ProductReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the product reservation ledger: how many units of each product sit in ACTIVE carts.
+ * Cart mutations apply deltas; a scheduled job rebuilds the projection from cart_items and repairs drift.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final ProductReservationRepository reservationRepository;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate repairTransaction;
+
+    @Autowired
+    public StockReservationService(ProductReservationRepository reservationRepository,
+                                   CartItemRepository cartItemRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.repairTransaction = new TransactionTemplate(transactionManager);
+        this.repairTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Quantity of a product currently held in active carts.
+     */
+    public int getReservedQuantity(Long productId) {
+        return reservationRepository.findReservedQuantity(productId).orElse(0);
+    }
+
+    /**
+     * Quantities held in active carts for several products, read with one query.
+     * Products without a ledger row are absent from the map.
+     */
+    public Map<Long, Integer> getReservedQuantities(Collection<Long> productIds) {
+        Map<Long, Integer> reserved = new HashMap<>();
+        for (ProductReservation reservation : reservationRepository.findAllById(productIds)) {
+            reserved.put(reservation.getProductId(),
+                    reservation.getReservedQuantity() != null ? reservation.getReservedQuantity() : 0);
+        }
+        return reserved;
+    }
+
+    /**
+     * Adds (positive) or releases (negative) reserved units for a product.
+     */
+    @Transactional
+    public void adjust(Long productId, int delta) {
+        if (productId == null || delta == 0) {
+            return;
+        }
+        reservationRepository.adjustReservedQuantity(productId, delta);
+    }
+
+    /**
+     * Releases reserved units, e.g. when a line leaves an active cart.
+     */
+    @Transactional
+    public void release(Long productId, int quantity) {
+        adjust(productId, -quantity);
+    }
+
+    /**
+     * Rebuilds the expected projection from cart_items and repairs rows that drifted.
+     * Each repair runs in its own short transaction holding only that product's ledger row.
+     * @return The number of products whose ledger value was corrected.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.reservations.reconcile-interval-ms:600000}",
+            initialDelayString = "${app.stock.reservations.reconcile-initial-delay-ms:60000}")
+    public int reconcileReservations() {
+        Map<Long, Integer> expected = new HashMap<>();
+        for (Object[] row : cartItemRepository.sumQuantityByProductForCartStatus(Cart.CartStatus.ACTIVE)) {
+            expected.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+
+        Set<Long> drifted = new HashSet<>();
+        List<ProductReservation> ledger = reservationRepository.findAll();
+        Set<Long> seen = new HashSet<>();
+        for (ProductReservation reservation : ledger) {
+            seen.add(reservation.getProductId());
+            int expectedQty = expected.getOrDefault(reservation.getProductId(), 0);
+            if (reservation.getReservedQuantity() == null || reservation.getReservedQuantity() != expectedQty) {
+                drifted.add(reservation.getProductId());
+            }
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            if (!seen.contains(entry.getKey()) && entry.getValue() != 0) {
+                drifted.add(entry.getKey());
+            }
+        }
+
+        int repaired = 0;
+        for (Long productId : drifted) {
+            Boolean changed = repairTransaction.execute(status -> repair(productId));
+            if (Boolean.TRUE.equals(changed)) {
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            logger.warn("Stock reservation reconciliation repaired {} product(s)", repaired);
+        } else {
+            logger.debug("Stock reservation reconciliation found no drift across {} product(s)", ledger.size());
+        }
+        return repaired;
+    }
+
+    private boolean repair(Long productId) {
+        // Lock the ledger row first so the recount sees every committed cart change for this product
+        ProductReservation reservation = reservationRepository.findForUpdate(productId).orElse(null);
+        int actual = (int) cartItemRepository.sumQuantityForProductAndCartStatus(productId, Cart.CartStatus.ACTIVE);
+
+        if (reservation == null) {
+            if (actual == 0) {
+                return false;
+            }
+            reservationRepository.adjustReservedQuantity(productId, actual);
+            logger.warn("Reservation ledger was missing product {}; rebuilt with {}", productId, actual);
+            return true;
+        }
+        if (reservation.getReservedQuantity() != null && reservation.getReservedQuantity() == actual) {
+            return false;
+        }
+        logger.warn("Reservation ledger drift for product {}: ledger={}, carts={}",
+                productId, reservation.getReservedQuantity(), actual);
+        reservation.setReservedQuantity(actual);
+        reservationRepository.save(reservation);
+        return true;
+    }
+}
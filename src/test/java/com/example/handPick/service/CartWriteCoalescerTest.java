@@ -0,0 +1,81 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class CartWriteCoalescerTest {
+
+    private CartWriteCoalescer coalescer;
+    private User user;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        coalescer = new CartWriteCoalescer(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        // Long enough that no timed flush fires during a test
+        ReflectionTestUtils.setField(coalescer, "windowMs", 60_000L);
+        ReflectionTestUtils.setField(coalescer, "maxDelayMs", 60_000L);
+        coalescer.start();
+        user = new User();
+        user.setId(7L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        coalescer.flushAllOnShutdown();
+    }
+
+    @Test
+    void rolledBackDrainQueuesQuantitiesAgainUnderNewerChanges() {
+        coalescer.submit(user, 1L, 3);
+        coalescer.submit(user, 2L, 4);
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(Map.of(1L, 3, 2L, 4), coalescer.drain(user.getId()));
+        assertEquals(Map.of(), coalescer.pendingFor(user.getId()));
+
+        // A change made while the draining transaction was still open
+        coalescer.submit(user, 1L, 9);
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(Map.of(1L, 9, 2L, 4), coalescer.pendingFor(user.getId()));
+    }
+
+    @Test
+    void committedDrainIsNotQueuedAgain() {
+        coalescer.submit(user, 1L, 3);
+
+        TransactionSynchronizationManager.initSynchronization();
+        coalescer.drain(user.getId());
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(Map.of(), coalescer.pendingFor(user.getId()));
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
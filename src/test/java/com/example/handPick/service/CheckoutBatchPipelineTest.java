@@ -0,0 +1,78 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.CheckoutRequest;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.repository.ProductRepository;
+import com.example.handPick.support.CheckoutFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Group-commit checkouts against H2. The batch window is wide enough that requests submitted
+ * together share one batch.
+ */
+@SpringBootTest(properties = {
+        "app.checkout.group-commit.enabled=true",
+        "app.checkout.group-commit.max-wait-ms=500"
+})
+@ActiveProfiles("test")
+class CheckoutBatchPipelineTest {
+
+    @Autowired
+    private CheckoutBatchPipeline pipeline;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    @Test
+    void badRequestIsRejectedAloneWithoutFailingItsBatch() throws Exception {
+        Product product = fixtures.product("Batch Tea", 10);
+        User goodBuyer = fixtures.user();
+        fixtures.cart(goodBuyer, 2, product);
+        User badBuyer = fixtures.user();
+        fixtures.cart(badBuyer, 3, product);
+        CheckoutRequest unknownAddress = CheckoutFixtures.codCheckout();
+        unknownAddress.setNewAddress(null);
+        unknownAddress.setSelectedAddressId(Long.MAX_VALUE);
+        long fallbacksBefore = (long) pipeline.getStats().get("fallbackBatches");
+
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<Order> good = CompletableFuture.supplyAsync(() -> checkoutAfter(start, goodBuyer, CheckoutFixtures.codCheckout()));
+        CompletableFuture<Order> bad = CompletableFuture.supplyAsync(() -> checkoutAfter(start, badBuyer, unknownAddress));
+        start.countDown();
+
+        assertNotNull(good.get(30, TimeUnit.SECONDS).getId());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.get(30, TimeUnit.SECONDS));
+        assertEquals("Address not found", failure.getCause().getMessage());
+        assertEquals(fallbacksBefore, pipeline.getStats().get("fallbackBatches"), "batches retried one by one");
+        assertEquals(8, productRepository.findStockQuantityById(product.getId()).orElseThrow());
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private Order checkoutAfter(CountDownLatch start, User buyer, CheckoutRequest request) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return pipeline.checkout(buyer, request);
+    }
+}
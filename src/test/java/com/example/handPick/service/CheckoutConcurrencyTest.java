@@ -0,0 +1,106 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.repository.OrderItemRepository;
+import com.example.handPick.repository.ProductRepository;
+import com.example.handPick.support.CheckoutFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hundreds of parallel checkouts competing for the last units of one product. Each goes through the
+ * admission gate as the checkout endpoint does, so the connection pool sees at most
+ * app.checkout.admission.max-concurrent of them at once. The carts bypass the reservation ledger, so
+ * every checkout passes the pre-checks and only the guarded stock UPDATE stands between the buyers
+ * and an oversell.
+ */
+@SpringBootTest(properties = {
+        // Every buyer queues rather than being turned away, so all of them reach the stock UPDATE
+        "app.checkout.admission.max-queue=300",
+        "app.checkout.admission.max-wait-ms=120000"
+})
+@ActiveProfiles("test")
+class CheckoutConcurrencyTest {
+
+    private static final int STOCK = 5;
+    private static final int BUYERS = 300;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutAdmissionService admissionService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    @Test
+    void parallelCheckoutsNeverSellMoreThanTheStock() throws Exception {
+        Product product = fixtures.product("Limited Tea", STOCK);
+        List<User> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            User buyer = fixtures.user();
+            fixtures.cart(buyer, 1, product);
+            buyers.add(buyer);
+        }
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        try {
+            for (User buyer : buyers) {
+                pool.submit(() -> {
+                    try {
+                        start.await();
+                        try (CheckoutAdmissionService.Admission admission = admissionService.admit(buyer.getId())) {
+                            cartService.checkoutCart(buyer, CheckoutFixtures.codCheckout());
+                        }
+                        placed.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet(); // Insufficient stock
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(120, TimeUnit.SECONDS), "checkouts did not finish");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertEquals(STOCK, placed.get(), "orders placed");
+        assertEquals(BUYERS - STOCK, rejected.get(), "checkouts rejected");
+        assertEquals(0, productRepository.findStockQuantityById(product.getId()).orElseThrow(), "stock left");
+        assertEquals(STOCK, orderItemRepository.findAll().stream()
+                .filter(item -> item.getProductId().equals(product.getId()))
+                .mapToInt(item -> item.getQuantity())
+                .sum(), "units on orders");
+    }
+}
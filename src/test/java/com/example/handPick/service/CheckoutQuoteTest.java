@@ -0,0 +1,76 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.CheckoutQuoteRequest;
+import com.example.handPick.dto.CheckoutRequest;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.repository.ProductRepository;
+import com.example.handPick.support.CheckoutFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checkout with a quote token. The product is repriced after quoting, so the charged total shows
+ * whether checkout used the quote or validated the cart in full.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CheckoutQuoteTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    @Test
+    void quoteIsHonouredForTheQuotedAddress() {
+        User buyer = fixtures.user();
+        CheckoutRequest request = quotedCheckout(buyer);
+
+        Order order = cartService.checkoutCart(buyer, request);
+
+        assertEquals(0, new BigDecimal("23.60").compareTo(order.getTotalAmount()), "quoted total");
+        assertEquals("1 Test Street", order.getShippingAddress().getStreet());
+    }
+
+    @Test
+    void anotherAddressShipsThereAndIsValidatedInFull() {
+        User buyer = fixtures.user();
+        CheckoutRequest request = quotedCheckout(buyer);
+        request.getNewAddress().setStreet("9 Other Road");
+
+        Order order = cartService.checkoutCart(buyer, request);
+
+        assertEquals("9 Other Road", order.getShippingAddress().getStreet());
+        assertEquals(0, new BigDecimal("35.40").compareTo(order.getTotalAmount()), "repriced total");
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    // Two units quoted at 10.00, then the product goes up to 15.00
+    private CheckoutRequest quotedCheckout(User buyer) {
+        Product product = fixtures.product("Quoted Tea", 10);
+        fixtures.cart(buyer, 2, product);
+        CheckoutRequest request = CheckoutFixtures.codCheckout();
+        String token = cartService.quoteCheckout(buyer,
+                new CheckoutQuoteRequest(null, request.getNewAddress())).getQuoteToken();
+        request.setQuoteToken(token);
+        // A fresh copy of the address, so editing the request cannot reach the quoted one
+        request.setNewAddress(CheckoutFixtures.codCheckout().getNewAddress());
+
+        product.setPrice(new BigDecimal("15.00"));
+        productRepository.save(product);
+        return request;
+    }
+}
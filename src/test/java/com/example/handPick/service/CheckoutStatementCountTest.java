@@ -0,0 +1,116 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.support.CheckoutFixtures;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statement counts of cart and checkout paths, read from Hibernate statistics. The outbox is mocked
+ * so its worker threads cannot add statements while a count is being taken.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class CheckoutStatementCountTest {
+
+    private static final int LARGE_CART = 30;
+    // Allowance for id_generators block allocations (two statements each) landing in one run but not the other
+    private static final int ID_ALLOCATION_SLACK = 4;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void checkoutWritesOrderItemsAndCartDeletesInBatches() {
+        Counts small = checkout(1);
+        Counts large = checkout(LARGE_CART);
+
+        assertEquals(1 + LARGE_CART, large.inserts(), "order and order item inserts");
+        assertEquals(LARGE_CART, large.deletes(), "cart item deletes");
+        // Only the guarded stock UPDATE and the reservation ledger release run once per product;
+        // unbatched, each extra line would also cost an INSERT and a DELETE
+        int perExtraLine = 2;
+        long extra = large.statements() - small.statements();
+        assertTrue(extra <= (long) perExtraLine * (LARGE_CART - 1) + ID_ALLOCATION_SLACK,
+                () -> "a " + LARGE_CART + "-line checkout prepared " + extra + " more statements than a 1-line one");
+    }
+
+    @Test
+    void checkoutReadsItsInputsWithTheSameQueriesWhateverTheCartSize() {
+        Counts small = checkout(1);
+        Counts large = checkout(LARGE_CART);
+
+        // The snapshot query (user, cart, items, products, default address) and the batched ledger read
+        assertEquals(small.queries(), large.queries(), "queries for a 1-line and a " + LARGE_CART + "-line checkout");
+        assertEquals(0, large.lazyFetches(), "lazy entity or collection fetches");
+    }
+
+    @Test
+    void cartReadCostsTheSameStatementsWhateverItsSize() {
+        long small = statementsToReadCart(1);
+        long large = statementsToReadCart(LARGE_CART);
+
+        // Cart, items and products come from one fetch-join query; no per-line product selects
+        assertEquals(small, large, "statements to read a 1-line and a " + LARGE_CART + "-line cart");
+        assertEquals(0, statistics.getEntityFetchCount(), "lazy entity fetches");
+        assertEquals(0, statistics.getCollectionFetchCount(), "lazy collection fetches");
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private record Counts(long statements, long inserts, long deletes, long queries, long lazyFetches) {}
+
+    private Counts checkout(int lines) {
+        User buyer = buyerWithCart(lines);
+        statistics.clear();
+        cartService.checkoutCart(buyer, CheckoutFixtures.codCheckout());
+        return new Counts(statistics.getPrepareStatementCount(),
+                statistics.getEntityInsertCount(), statistics.getEntityDeleteCount(),
+                statistics.getQueryExecutionCount(),
+                statistics.getEntityFetchCount() + statistics.getCollectionFetchCount());
+    }
+
+    private long statementsToReadCart(int lines) {
+        User buyer = buyerWithCart(lines);
+        statistics.clear();
+        cartService.getCart(buyer, null);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User buyerWithCart(int lines) {
+        Product[] products = new Product[lines];
+        for (int i = 0; i < lines; i++) {
+            products[i] = fixtures.product("Line " + i, 100);
+        }
+        User buyer = fixtures.user();
+        fixtures.cart(buyer, 1, products);
+        return buyer;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.CheckoutRequest;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.support.CheckoutFixtures;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Orders per second through checkoutCart directly and through the group-commit pipeline, with the
+ * same number of concurrent buyers. Skipped unless -Dbenchmark=true:
+ * <pre>
+ * mvn test -Dtest=CheckoutThroughputBenchmark -Dbenchmark=true [-Dbenchmark.orders=2000] [-Dbenchmark.threads=8]
+ * </pre>
+ * Against the in-memory H2 test database a commit costs no fsync, which is what group commit saves;
+ * pass -Dspring.datasource.url=... (with username, password and dialect) to measure against MySQL.
+ */
+@SpringBootTest(properties = "app.checkout.group-commit.enabled=true")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutThroughputBenchmark {
+
+    private static final int PRODUCTS = 50;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutBatchPipeline pipeline;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    @Test
+    void comparePerRequestAndGroupCommitThroughput() throws Exception {
+        int orders = Integer.getInteger("benchmark.orders", 2000);
+        int threads = Integer.getInteger("benchmark.threads", 8);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(fixtures.product("Bench " + i, 1_000_000));
+        }
+
+        // Warm-up rounds load classes, JIT-compile and fill the id generator pools
+        run(products, orders / 10, threads, cartService::checkoutCart);
+        run(products, orders / 10, threads, pipeline::checkout);
+
+        double direct = run(products, orders, threads, cartService::checkoutCart);
+        double grouped = run(products, orders, threads, pipeline::checkout);
+        System.out.printf("checkout throughput, %d orders, %d threads: per-request %.0f orders/s, group commit %.0f orders/s%n",
+                orders, threads, direct, grouped);
+        System.out.println("group commit stats: " + pipeline.getStats());
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private double run(List<Product> products, int orders, int threads,
+                       BiFunction<User, CheckoutRequest, Order> checkout) throws Exception {
+        List<User> buyers = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            User buyer = fixtures.user();
+            fixtures.cart(buyer, 1, products.get(i % products.size()));
+            buyers.add(buyer);
+        }
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (User buyer : buyers) {
+            pool.submit(() -> {
+                try {
+                    checkout.apply(buyer, CheckoutFixtures.codCheckout());
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.MINUTES), "checkouts did not finish");
+        long elapsedNanos = System.nanoTime() - start;
+        assertTrue(failures.isEmpty(), () -> "failed checkouts: " + failures.size() + ", first: " + failures.peek());
+        return orders * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.AddToCartRequest;
+import com.example.handPick.dto.CartDto;
+import com.example.handPick.dto.CartItemDto;
+import com.example.handPick.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GuestCartServiceTest {
+
+    private static final long PRODUCT_ID = 5L;
+
+    private GuestCartService guestCartService;
+    private final UUID guestId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setName("Loose Tea");
+        product.setPrice(new BigDecimal("10.00"));
+        ProductService productService = mock(ProductService.class);
+        when(productService.getProductEntityById(PRODUCT_ID)).thenReturn(Optional.of(product));
+        when(productService.getAvailableStock(anyLong())).thenReturn(100);
+        when(productService.getProductEntitiesByIds(anyCollection())).thenReturn(Map.of(PRODUCT_ID, product));
+
+        guestCartService = new GuestCartService(productService);
+        ReflectionTestUtils.setField(guestCartService, "maxCarts", 10);
+        ReflectionTestUtils.setField(guestCartService, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(guestCartService, "maxLines", 10);
+        guestCartService.initStore();
+
+        add("250g", 1);
+        add("1kg", 2);
+    }
+
+    @Test
+    void sizeChoosesWhichLineIsUpdatedOrRemoved() {
+        CartDto updated = guestCartService.updateItemQuantity(guestId, PRODUCT_ID, "1kg", 5);
+        assertEquals(Map.of("250g", 1, "1kg", 5), quantitiesBySize(updated));
+
+        CartDto removed = guestCartService.removeItem(guestId, PRODUCT_ID, "250g");
+        assertEquals(Map.of("1kg", 5), quantitiesBySize(removed));
+    }
+
+    @Test
+    void missingSizeIsRejectedWhileTheProductHasSeveralLines() {
+        assertThrows(IllegalArgumentException.class,
+                () -> guestCartService.updateItemQuantity(guestId, PRODUCT_ID, null, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> guestCartService.removeItem(guestId, PRODUCT_ID, null));
+        assertEquals(Map.of("250g", 1, "1kg", 2), quantitiesBySize(guestCartService.getCart(guestId)));
+
+        guestCartService.removeItem(guestId, PRODUCT_ID, "250g");
+        CartDto updated = guestCartService.updateItemQuantity(guestId, PRODUCT_ID, null, 4);
+        assertEquals(Map.of("1kg", 4), quantitiesBySize(updated));
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private void add(String size, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(PRODUCT_ID);
+        request.setSize(size);
+        request.setQuantity(quantity);
+        guestCartService.addItem(guestId, request);
+    }
+
+    private static Map<String, Integer> quantitiesBySize(CartDto cart) {
+        return cart.getItems().stream()
+                .collect(Collectors.toMap(CartItemDto::getSize, CartItemDto::getQuantity));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.CheckoutRequest;
+import com.example.handPick.dto.CheckoutResponse;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.repository.IdempotencyRecordRepository;
+import com.example.handPick.repository.OrderRepository;
+import com.example.handPick.support.CheckoutFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two requests with the same Idempotency-Key. The second service instance has its own in-memory
+ * state and shares only the database, as another application instance would.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    private IdempotencyService otherInstance;
+
+    @BeforeEach
+    void setUp() {
+        otherInstance = new IdempotencyService(recordRepository, objectMapper, transactionManager);
+        ReflectionTestUtils.setField(otherInstance, "ttlHours", 24L);
+        ReflectionTestUtils.setField(otherInstance, "cacheSize", 100);
+        ReflectionTestUtils.setField(otherInstance, "waitTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(otherInstance, "inProgressTtlMs", 120_000L);
+        ReflectionTestUtils.setField(otherInstance, "pollIntervalMs", 20L);
+        otherInstance.initCache();
+    }
+
+    @Test
+    void retryOnAnotherInstanceWaitsForTheRunningCheckoutAndReplaysIt() throws Exception {
+        Product product = fixtures.product("Retried Tea", 10);
+        User buyer = fixtures.user();
+        fixtures.cart(buyer, 2, product);
+        CheckoutRequest request = CheckoutFixtures.codCheckout();
+        String key = UUID.randomUUID().toString();
+        AtomicInteger checkouts = new AtomicInteger();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<CheckoutResponse>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(buyer.getId(), "cart.checkout", key, request, CheckoutResponse.class, () -> {
+                    firstStarted.countDown();
+                    await(releaseFirst);
+                    return checkout(buyer, request, checkouts);
+                }));
+        assertTrue(firstStarted.await(30, TimeUnit.SECONDS));
+        // The client timed out and retried; the retry lands on the other instance mid-checkout
+        CompletableFuture<ResponseEntity<CheckoutResponse>> retry = CompletableFuture.supplyAsync(() ->
+                otherInstance.execute(buyer.getId(), "cart.checkout", key, request, CheckoutResponse.class,
+                        () -> checkout(buyer, request, checkouts)));
+        Thread.sleep(300);
+        releaseFirst.countDown();
+
+        ResponseEntity<CheckoutResponse> original = first.get(30, TimeUnit.SECONDS);
+        ResponseEntity<CheckoutResponse> replayed = retry.get(30, TimeUnit.SECONDS);
+        assertEquals(1, checkouts.get(), "checkouts run");
+        assertEquals(HttpStatus.OK, replayed.getStatusCode());
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(original.getBody().getOrderId(), replayed.getBody().getOrderId());
+        assertEquals(1, orderRepository.findByUser(buyer).size());
+    }
+
+    @Test
+    void failedAttemptFreesTheKeyForTheRetry() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<String> failed = idempotencyService.execute(1L, "test", key, "body", String.class, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("busy");
+        });
+        ResponseEntity<String> retried = otherInstance.execute(1L, "test", key, "body", String.class, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok("done");
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, failed.getStatusCode());
+        assertEquals(HttpStatus.OK, retried.getStatusCode());
+        assertEquals("done", retried.getBody());
+        assertEquals(2, runs.get());
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private ResponseEntity<CheckoutResponse> checkout(User buyer, CheckoutRequest request, AtomicInteger checkouts) {
+        checkouts.incrementAndGet();
+        Order order = cartService.checkoutCart(buyer, request);
+        return ResponseEntity.ok(new CheckoutResponse(order.getId(), "Order placed successfully!", true));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.AdminNotification;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.OutboxEvent;
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.repository.AdminNotificationRepository;
+import com.example.handPick.repository.OutboxEventRepository;
+import com.example.handPick.support.CheckoutFixtures;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Outbox delivery against a local SMTP server. Backoff and polling are shortened so a failed
+ * delivery is retried within the test.
+ */
+@SpringBootTest(properties = {
+        "app.notifications.email.enabled=true",
+        "app.notifications.email.admin=admin@handpick.test",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "app.outbox.base-backoff-ms=100",
+        "app.outbox.poll-interval-ms=200",
+        "app.outbox.poll-initial-delay-ms=200"
+})
+@ActiveProfiles("test")
+class OutboxServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private AdminNotificationRepository notificationRepository;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    private JavaMailSender mailSender;
+
+    @Test
+    void checkoutEventIsRetriedAfterAMailFailureAndDeliveredOnce() throws Exception {
+        doThrow(new MailSendException("SMTP unavailable"))
+                .doCallRealMethod()
+                .when(mailSender).send(any(SimpleMailMessage.class));
+        Product product = fixtures.product("Outbox Tea", 10);
+        User buyer = fixtures.user();
+        fixtures.cart(buyer, 1, product);
+
+        Order order = cartService.checkoutCart(buyer, CheckoutFixtures.codCheckout());
+
+        OutboxEvent event = awaitSent(NotificationService.ORDER_PLACED, order.getId());
+        assertEquals(2, event.getAttempts(), "delivery attempts");
+        assertNull(event.getLastError());
+        assertEquals(1, notificationsFor(order.getId(), NotificationService.ORDER_PLACED), "notification rows");
+        assertEquals(1, emailsWithSubject("New Order #" + order.getId() + " - HandPick"), "emails");
+
+        // A later poll finds nothing due; the event is not delivered again
+        outboxService.pollDueEvents();
+        Thread.sleep(300);
+        assertEquals(1, emailsWithSubject("New Order #" + order.getId() + " - HandPick"), "emails after another poll");
+    }
+
+    @Test
+    void eventEnqueuedInARolledBackTransactionIsNeitherStoredNorDelivered() {
+        long orderId = 900_001L;
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outboxService.enqueue(NotificationService.ORDER_PLACED, orderId, payload());
+            status.setRollbackOnly();
+        });
+
+        assertNull(findEvent(NotificationService.ORDER_PLACED, orderId), "event row after rollback");
+        assertEquals(0, greenMail.getReceivedMessages().length, "emails");
+    }
+
+    @Test
+    void afterCommitEventIsRecordedOnlyOnceTheCallerCommits() throws Exception {
+        long committedId = 900_002L;
+        long rolledBackId = 900_003L;
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            outboxService.enqueueAfterCommit(NotificationService.ORDER_CANCELLED, committedId, payload());
+            assertNull(findEvent(NotificationService.ORDER_CANCELLED, committedId), "event row before commit");
+        });
+        transaction.executeWithoutResult(status -> {
+            outboxService.enqueueAfterCommit(NotificationService.ORDER_CANCELLED, rolledBackId, payload());
+            status.setRollbackOnly();
+        });
+
+        awaitSent(NotificationService.ORDER_CANCELLED, committedId);
+        assertEquals(1, notificationsFor(committedId, NotificationService.ORDER_CANCELLED), "notification rows");
+        assertEquals(1, emailsWithSubject("Order Cancelled #" + committedId + " - HandPick"), "emails");
+        assertNull(findEvent(NotificationService.ORDER_CANCELLED, rolledBackId), "event row after rollback");
+    }
+
+    @Test
+    void claimLeasesAnEventToOneWorker() {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType("TEST_LEASE");
+        event.setAggregateId(900_004L);
+        event.setPayload("{}");
+        // Not due by the real clock, so the poller leaves it alone; the claims below pass a later "now"
+        event.setNextAttemptAt(LocalDateTime.now().plusDays(1));
+        Long eventId = outboxEventRepository.save(event).getId();
+        LocalDateTime due = LocalDateTime.now().plusDays(2);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        Integer first = transaction.execute(status -> outboxEventRepository.claim(
+                eventId, OutboxEvent.OutboxStatus.PENDING, due, due.plusMinutes(2)));
+        Integer second = transaction.execute(status -> outboxEventRepository.claim(
+                eventId, OutboxEvent.OutboxStatus.PENDING, due, due.plusMinutes(2)));
+        Integer afterLease = transaction.execute(status -> outboxEventRepository.claim(
+                eventId, OutboxEvent.OutboxStatus.PENDING, due.plusMinutes(3), due.plusMinutes(5)));
+
+        assertEquals(1, first, "first claim");
+        assertEquals(0, second, "claim while leased");
+        assertEquals(1, afterLease, "claim once the lease has run out");
+        assertEquals(2, outboxEventRepository.findById(eventId).orElseThrow().getAttempts());
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private static Map<String, String> payload() {
+        return Map.of("title", "Test", "message", "Outbox test", "customerName", "Buyer",
+                "customerMobile", "8000000000", "totalAmount", "10.00", "paymentMethod", "COD");
+    }
+
+    private OutboxEvent awaitSent(String type, Long aggregateId) throws InterruptedException {
+        return awaitValue(() -> {
+            OutboxEvent event = findEvent(type, aggregateId);
+            return event != null && event.getStatus() == OutboxEvent.OutboxStatus.SENT ? event : null;
+        }, type + " for " + aggregateId + " was not sent");
+    }
+
+    private OutboxEvent findEvent(String type, Long aggregateId) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getEventType().equals(type) && event.getAggregateId().equals(aggregateId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private long notificationsFor(Long orderId, String type) {
+        List<AdminNotification> notifications = notificationRepository.findByOrderIdOrderByCreatedAtDesc(orderId);
+        return notifications.stream().filter(notification -> notification.getType().equals(type)).count();
+    }
+
+    private static long emailsWithSubject(String subject) {
+        return Arrays.stream(greenMail.getReceivedMessages())
+                .filter(message -> subject.equals(subjectOf(message)))
+                .count();
+    }
+
+    private static String subjectOf(MimeMessage message) {
+        try {
+            return message.getSubject();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T awaitValue(Supplier<T> probe, String failure) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            T value = probe.get();
+            if (value != null) {
+                return value;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError(failure);
+    }
+}
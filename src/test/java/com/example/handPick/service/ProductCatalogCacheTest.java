@@ -0,0 +1,166 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.ProductDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Eviction of cached products and listings. Transactions are simulated with the synchronization
+ * manager, so an after-commit eviction can be made to run in the middle of a load.
+ */
+class ProductCatalogCacheTest {
+
+    private static final ProductCatalogCache.ListingKind CATALOG = ProductCatalogCache.ListingKind.CATALOG;
+    private static final ProductCatalogCache.ListingKind SEARCH = ProductCatalogCache.ListingKind.SEARCH;
+
+    private static final Page PAGE_0 = new Page("page:0", CATALOG, Set.of(1L, 2L));
+    private static final Page PAGE_1 = new Page("page:1", CATALOG, Set.of(3L, 4L));
+    private static final Page SEARCH_TEA = new Page("search:tea", SEARCH, Set.of(1L, 3L));
+    private static final Page SEARCH_MINT = new Page("search:mint", SEARCH, Set.of(4L));
+
+    private ProductCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCatalogCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxProducts", 100);
+        ReflectionTestUtils.setField(cache, "maxListings", 100);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        cache.initCaches();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadOverlappingAnAfterCommitEvictionIsNotCached() {
+        // A stock update is in flight; its eviction runs when it commits, halfway through the loads below
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictStockAfterCommit(List.of(1L));
+        AtomicInteger productLoads = new AtomicInteger();
+        AtomicInteger listingLoads = new AtomicInteger();
+
+        cache.getProduct(1L, () -> {
+            productLoads.incrementAndGet();
+            ProductDto stale = product(1L);
+            commit();
+            return Optional.of(stale);
+        });
+        // Product 2 this time, so this commit cannot also evict a wrongly cached product 1
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictStockAfterCommit(List.of(2L));
+        cache.getListing(PAGE_0.key(), CATALOG, () -> {
+            listingLoads.incrementAndGet();
+            Set<Long> stale = PAGE_0.productIds();
+            commit();
+            return stale;
+        }, ids -> ids);
+
+        // Neither stale result was cached, so both are loaded again; a load with no eviction is cached
+        cache.getProduct(1L, () -> Optional.of(product(productLoads.incrementAndGet())));
+        cache.getListing(PAGE_0.key(), CATALOG, () -> {
+            listingLoads.incrementAndGet();
+            return PAGE_0.productIds();
+        }, ids -> ids);
+        assertEquals(2, productLoads.get(), "product loads");
+        assertEquals(2, listingLoads.get(), "listing loads");
+        assertTrue(cachedProduct(1L));
+        assertTrue(cached(PAGE_0));
+    }
+
+    @Test
+    void stockChangeEvictsOnlyTheListingsShowingTheProduct() {
+        load(PAGE_0);
+        load(PAGE_1);
+        load(SEARCH_TEA);
+        load(SEARCH_MINT);
+
+        cache.evictStockAfterCommit(List.of(1L));
+
+        assertFalse(cached(PAGE_0));
+        assertFalse(cached(SEARCH_TEA));
+        assertTrue(cached(PAGE_1));
+        assertTrue(cached(SEARCH_MINT));
+    }
+
+    @Test
+    void textChangeEvictsEverySearchListing() {
+        load(PAGE_0);
+        load(PAGE_1);
+        load(SEARCH_TEA);
+        load(SEARCH_MINT);
+
+        // Product 2 is on no search listing, but its new text may now match any of them
+        cache.evictProductAfterCommit(2L, true);
+
+        assertFalse(cached(PAGE_0));
+        assertFalse(cached(SEARCH_TEA));
+        assertFalse(cached(SEARCH_MINT));
+        assertTrue(cached(PAGE_1));
+
+        // A change that leaves the text alone evicts only where the product is shown
+        load(SEARCH_TEA);
+        load(SEARCH_MINT);
+        cache.evictProductAfterCommit(3L, false);
+        assertFalse(cached(SEARCH_TEA));
+        assertFalse(cached(PAGE_1));
+        assertTrue(cached(SEARCH_MINT));
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    // Runs the registered after-commit callbacks, as the transaction manager does on commit
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+    }
+
+    // A listing whose value is just the IDs of the products on it
+    private record Page(String key, ProductCatalogCache.ListingKind kind, Set<Long> productIds) {}
+
+    private void load(Page page) {
+        cache.getListing(page.key(), page.kind(), page::productIds, ids -> ids);
+    }
+
+    // Whether the listing is served from the cache; a miss loads and caches it again
+    private boolean cached(Page page) {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getListing(page.key(), page.kind(), () -> {
+            loads.incrementAndGet();
+            return page.productIds();
+        }, ids -> ids);
+        return loads.get() == 0;
+    }
+
+    private boolean cachedProduct(Long id) {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getProduct(id, () -> Optional.of(product(loads.incrementAndGet())));
+        return loads.get() == 0;
+    }
+
+    private static ProductDto product(long id) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        return product;
+    }
+}
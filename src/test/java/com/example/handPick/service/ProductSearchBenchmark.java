@@ -0,0 +1,238 @@
+package com.example.handPick.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Build time, heap, query and update latency of the search index over a synthetic catalog, with a
+ * lower-case contains scan of the same text (what LOWER(...) LIKE '%term%' does, minus the I/O) for
+ * comparison, and latency of the fuzzy fallback for misspelt words. Skipped unless -Dbenchmark=true:
+ * <pre>
+ * mvn test -Dtest=ProductSearchBenchmark -Dbenchmark=true [-Dbenchmark.products=100000] [-Dbenchmark.words=20000]
+ * mvn test -Dtest=ProductSearchBenchmark#fuzzyFallbackLatency -Dbenchmark=true ...
+ * </pre>
+ * Products have a three-word name, one of 20 categories and a 30-word description; description words
+ * follow a Zipf-like distribution. The catalog is seeded, so runs are comparable.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductSearchBenchmark {
+
+    private static final int QUERIES = 200;
+    private static final int UPDATES = 1000;
+    private static final int DESCRIPTION_WORDS = 30;
+    private static final int CATEGORIES = 20;
+    private static final long SEED = 42;
+    // The defaults of app.search.index.max-prefix-expansions and app.search.index.fuzzy.*
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int MAX_TYPOS = 2;
+    private static final int MAX_TYPO_EXPANSIONS = 20;
+
+    @Test
+    void compareIndexWithContainsScan() {
+        int productCount = Integer.getInteger("benchmark.products", 100_000);
+        int wordCount = Integer.getInteger("benchmark.words", 20_000);
+        Random random = new Random(SEED);
+        String[] vocabulary = vocabulary(random, wordCount);
+        List<InvertedIndexProductSearchEngine.Document> catalog = catalog(random, vocabulary, productCount);
+
+        long heapBefore = usedHeap();
+        long buildStarted = System.nanoTime();
+        InvertedIndexProductSearchEngine.Index index = new InvertedIndexProductSearchEngine.Index();
+        catalog.forEach(index::add);
+        long buildMs = (System.nanoTime() - buildStarted) / 1_000_000;
+        long heapMb = (usedHeap() - heapBefore) / (1024 * 1024);
+
+        String[] scanText = new String[catalog.size()];
+        for (int i = 0; i < scanText.length; i++) {
+            InvertedIndexProductSearchEngine.Document document = catalog.get(i);
+            scanText[i] = (document.name() + " " + document.category() + " " + document.description())
+                    .toLowerCase(Locale.ROOT);
+        }
+
+        List<List<String>> queries = queries(random, catalog);
+        // Warm-up pass loads classes and JIT-compiles both paths
+        time(queries, words -> index.search(words, MAX_PREFIX_EXPANSIONS, 0, 0).size());
+        time(queries, words -> scan(scanText, words));
+
+        long[] indexNanos = time(queries, words -> index.search(words, MAX_PREFIX_EXPANSIONS, 0, 0).size());
+        long[] scanNanos = time(queries, words -> scan(scanText, words));
+
+        long updateStarted = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            InvertedIndexProductSearchEngine.Document document = catalog.get(random.nextInt(catalog.size()));
+            index.add(new InvertedIndexProductSearchEngine.Document(document.productId(), document.name(),
+                    document.category(), description(random, vocabulary)));
+        }
+        long updateMicros = (System.nanoTime() - updateStarted) / UPDATES / 1000;
+
+        System.out.printf("search index, %d products, %d words: build %d ms, ~%d MB heap, update %d us%n",
+                productCount, wordCount, buildMs, heapMb, updateMicros);
+        System.out.println("  index query    " + summary(indexNanos));
+        System.out.println("  contains scan  " + summary(scanNanos));
+    }
+
+    @Test
+    void fuzzyFallbackLatency() {
+        int productCount = Integer.getInteger("benchmark.products", 100_000);
+        int wordCount = Integer.getInteger("benchmark.words", 20_000);
+        Random random = new Random(SEED);
+        String[] vocabulary = vocabulary(random, wordCount);
+        List<InvertedIndexProductSearchEngine.Document> catalog = catalog(random, vocabulary, productCount);
+        InvertedIndexProductSearchEngine.Index index = new InvertedIndexProductSearchEngine.Index();
+        catalog.forEach(index::add);
+
+        // A word from a product's name with one substitution, insertion or swap; found if that product comes back
+        List<InvertedIndexProductSearchEngine.Document> targets = new ArrayList<>(QUERIES);
+        List<String> misspellings = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            InvertedIndexProductSearchEngine.Document target = catalog.get(random.nextInt(catalog.size()));
+            String word = target.name().split(" ")[random.nextInt(3)];
+            targets.add(target);
+            misspellings.add(misspell(random, word, q % 3));
+        }
+        for (String misspelling : misspellings) {
+            index.search(List.of(misspelling), MAX_PREFIX_EXPANSIONS, MAX_TYPOS, MAX_TYPO_EXPANSIONS);
+        }
+
+        long[] nanos = new long[QUERIES];
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            long started = System.nanoTime();
+            List<Long> ids = index.search(List.of(misspellings.get(q)),
+                    MAX_PREFIX_EXPANSIONS, MAX_TYPOS, MAX_TYPO_EXPANSIONS);
+            nanos[q] = System.nanoTime() - started;
+            if (ids.contains(targets.get(q).productId())) {
+                found++;
+            }
+        }
+
+        System.out.printf("fuzzy fallback, %d products, %d words: %s; %d of %d misspellings found their product%n",
+                productCount, wordCount, summary(nanos), found, QUERIES);
+        assertTrue(found > QUERIES / 2, "fewer than half the misspellings were found");
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private interface Search {
+        int run(List<String> words);
+    }
+
+    private static long[] time(List<List<String>> queries, Search search) {
+        long[] nanos = new long[queries.size()];
+        for (int q = 0; q < queries.size(); q++) {
+            long started = System.nanoTime();
+            int hits = search.run(queries.get(q));
+            nanos[q] = System.nanoTime() - started;
+            int query = q;
+            assertTrue(hits > 0, () -> "no results for " + queries.get(query));
+        }
+        return nanos;
+    }
+
+    private static int scan(String[] texts, List<String> words) {
+        int hits = 0;
+        for (String text : texts) {
+            boolean matchesAll = true;
+            for (int w = 0; w < words.size() && matchesAll; w++) {
+                matchesAll = text.contains(words.get(w));
+            }
+            if (matchesAll) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    // One or two words taken from a product's name; half the time the last word is cut short,
+    // as while the customer is still typing
+    private static List<List<String>> queries(Random random, List<InvertedIndexProductSearchEngine.Document> catalog) {
+        List<List<String>> queries = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            String[] name = catalog.get(random.nextInt(catalog.size())).name().split(" ");
+            List<String> words = new ArrayList<>(Arrays.asList(name).subList(0, 1 + q % 2));
+            if (random.nextBoolean()) {
+                String last = words.remove(words.size() - 1);
+                words.add(last.substring(0, Math.max(3, last.length() - 2)));
+            }
+            queries.add(words);
+        }
+        return queries;
+    }
+
+    private static String[] vocabulary(Random random, int size) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < size) {
+            int length = 4 + random.nextInt(7);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(word.toString());
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static List<InvertedIndexProductSearchEngine.Document> catalog(Random random, String[] vocabulary, int size) {
+        List<InvertedIndexProductSearchEngine.Document> catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = vocabulary[random.nextInt(vocabulary.length)] + " "
+                    + vocabulary[random.nextInt(vocabulary.length)] + " "
+                    + vocabulary[random.nextInt(vocabulary.length)];
+            catalog.add(new InvertedIndexProductSearchEngine.Document(i + 1L, name,
+                    vocabulary[random.nextInt(CATEGORIES)], description(random, vocabulary)));
+        }
+        return catalog;
+    }
+
+    private static String misspell(Random random, String word, int kind) {
+        StringBuilder typo = new StringBuilder(word);
+        int at = random.nextInt(word.length() - 1);
+        if (kind == 1) {
+            typo.insert(at, (char) ('a' + random.nextInt(26)));
+        } else if (kind == 2 && word.charAt(at) != word.charAt(at + 1)) {
+            typo.setCharAt(at, word.charAt(at + 1));
+            typo.setCharAt(at + 1, word.charAt(at));
+        } else {
+            // Substitution; also used when swapping two equal letters would change nothing
+            typo.setCharAt(at, (char) ('a' + (word.charAt(at) - 'a' + 1 + random.nextInt(25)) % 26));
+        }
+        return typo.toString();
+    }
+
+    // Log-uniform ranks, so a few words are very common and most are rare
+    private static String description(Random random, String[] vocabulary) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < DESCRIPTION_WORDS; i++) {
+            int rank = (int) Math.exp(random.nextDouble() * Math.log(vocabulary.length)) - 1;
+            description.append(vocabulary[rank]).append(' ');
+        }
+        return description.toString();
+    }
+
+    private static String summary(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.ceil(fraction * sorted.length) - 1] / 1e6;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
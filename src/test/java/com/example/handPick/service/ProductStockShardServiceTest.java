@@ -0,0 +1,91 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Product;
+import com.example.handPick.model.ProductStockShard;
+import com.example.handPick.repository.ProductStockShardRepository;
+import com.example.handPick.support.CheckoutFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductStockShardServiceTest {
+
+    @Autowired
+    private ProductStockShardService shardService;
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    @Autowired
+    private CheckoutFixtures fixtures;
+
+    @Test
+    void setTotalRecreatesMissingShards() {
+        Product product = fixtures.product("Shardless Tea", 0);
+
+        shardService.setTotal(product.getId(), 10, 4);
+
+        List<ProductStockShard> shards = shardRepository.findAll().stream()
+                .filter(shard -> shard.getProductId().equals(product.getId()))
+                .toList();
+        assertEquals(4, shards.size());
+        assertEquals(10, shardService.getTotal(product.getId()));
+    }
+
+    @Test
+    void decrementSpansShardsWhenNoSingleShardCovers() {
+        Product product = fixtures.product("Spread Tea", 0);
+        shardService.createShards(product.getId(), 10, 4);
+
+        assertTrue(shardService.decrement(product.getId(), 7));
+        assertEquals(3, shardService.getTotal(product.getId()));
+        assertFalse(shardService.decrement(product.getId(), 4));
+        assertEquals(3, shardService.getTotal(product.getId()));
+    }
+
+    @Test
+    void concurrentDecrementsNeverTakeMoreThanTheStock() throws Exception {
+        Product product = fixtures.product("Busy Tea", 0);
+        shardService.createShards(product.getId(), 40, 4);
+
+        AtomicInteger sold = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 24; i++) {
+            // Mixes single-shard decrements with ones that must span shards
+            int quantity = i % 3 == 0 ? 12 : 2;
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    if (shardService.decrement(product.getId(), quantity)) {
+                        sold.addAndGet(quantity);
+                    }
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertEquals(40 - sold.get(), shardService.getTotal(product.getId()));
+    }
+}
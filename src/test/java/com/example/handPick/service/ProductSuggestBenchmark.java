@@ -0,0 +1,144 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Product;
+import com.example.handPick.repository.OrderItemRepository;
+import com.example.handPick.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load time, incremental update time and lookup latency of the suggestion index over a synthetic
+ * catalog served by mocked repositories. Skipped unless -Dbenchmark=true:
+ * <pre>
+ * mvn test -Dtest=ProductSuggestBenchmark -Dbenchmark=true [-Dbenchmark.products=100000]
+ * </pre>
+ * Products have a three-word name and one of 20 categories; sales are random. Lookups are prefixes of
+ * 1 to 4 characters cut from product name words, timed through suggest() as the endpoint calls it, so
+ * 1-2 character prefixes include the per-snapshot cache. The catalog is seeded, so runs are comparable.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductSuggestBenchmark {
+
+    private static final int QUERIES = 2000;
+    private static final int UPDATES = 1000;
+    private static final int WORDS = 20_000;
+    private static final int CATEGORIES = 20;
+    private static final int LIMIT = 10;
+    private static final long SEED = 42;
+
+    @Test
+    void loadUpdateAndLookupLatency() {
+        int productCount = Integer.getInteger("benchmark.products", 100_000);
+        Random random = new Random(SEED);
+        String[] vocabulary = vocabulary(random);
+        List<Object[]> catalog = new ArrayList<>(productCount);
+        List<Object[]> sales = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            catalog.add(new Object[] {i + 1L, name(random, vocabulary), vocabulary[random.nextInt(CATEGORIES)]});
+            sales.add(new Object[] {i + 1L, (long) random.nextInt(1000)});
+        }
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        when(productRepository.findNameAndCategoryAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            int from = (int) (long) call.getArgument(0);
+            Pageable page = call.getArgument(1);
+            return catalog.subList(from, Math.min(catalog.size(), from + page.getPageSize()));
+        });
+        when(orderItemRepository.sumQuantityByProductExcludingStatus(any())).thenReturn(sales);
+        ProductSuggestIndex index = new ProductSuggestIndex(productRepository, orderItemRepository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxLimit", 20);
+        ReflectionTestUtils.setField(index, "loadBatchSize", 1000);
+
+        // The first load warms up class loading and the JIT; the second is timed
+        index.rebuild();
+        long loadStarted = System.nanoTime();
+        index.rebuild();
+        long loadMs = (System.nanoTime() - loadStarted) / 1_000_000;
+
+        System.out.printf("suggest index, %d products, %d keys: load %d ms%n",
+                productCount, (int) index.getStats().get("keys"), loadMs);
+        for (int length = 1; length <= 4; length++) {
+            List<String> prefixes = prefixes(random, catalog, length);
+            prefixes.forEach(prefix -> index.suggest(prefix, LIMIT));
+            long[] nanos = new long[prefixes.size()];
+            for (int q = 0; q < prefixes.size(); q++) {
+                long started = System.nanoTime();
+                int hits = index.suggest(prefixes.get(q), LIMIT).size();
+                nanos[q] = System.nanoTime() - started;
+                assertTrue(hits > 0, "no suggestions for " + prefixes.get(q));
+            }
+            System.out.printf("  %d-character prefix  %s%n", length, summary(nanos));
+        }
+
+        // A rename or recategorisation of a random product, applied as after a commit
+        long[] updateNanos = new long[UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            Product product = new Product();
+            product.setId(1L + random.nextInt(productCount));
+            product.setName(name(random, vocabulary));
+            product.setCategory(vocabulary[random.nextInt(CATEGORIES)]);
+            long started = System.nanoTime();
+            index.indexAfterCommit(product);
+            updateNanos[i] = System.nanoTime() - started;
+        }
+        System.out.println("  incremental update   " + summary(updateNanos));
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private static List<String> prefixes(Random random, List<Object[]> catalog, int length) {
+        List<String> prefixes = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            String[] words = ((String) catalog.get(random.nextInt(catalog.size()))[1]).split(" ");
+            prefixes.add(words[random.nextInt(words.length)].substring(0, length));
+        }
+        return prefixes;
+    }
+
+    private static String[] vocabulary(Random random) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < WORDS) {
+            int length = 4 + random.nextInt(7);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(word.toString());
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static String name(Random random, String[] vocabulary) {
+        return vocabulary[random.nextInt(vocabulary.length)] + " "
+                + vocabulary[random.nextInt(vocabulary.length)] + " "
+                + vocabulary[random.nextInt(vocabulary.length)];
+    }
+
+    private static String summary(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("p50 %.1f us, p99 %.1f us, max %.1f us",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.ceil(fraction * sorted.length) - 1] / 1e3;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.handPick.service;
+
+import com.example.handPick.dto.ProductSuggestionDto;
+import com.example.handPick.model.Product;
+import com.example.handPick.repository.OrderItemRepository;
+import com.example.handPick.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Incremental changes to the suggestion index. After every change the merged snapshot must hold
+ * exactly the entries, in key order, that a full rebuild of the same catalog produces.
+ */
+class ProductSuggestIndexTest {
+
+    // id -> {name, category}; what the mocked repository returns on rebuild
+    private final Map<Long, String[]> catalog = new TreeMap<>();
+    // Products 6-8 are not in the catalog until a test adds them
+    private final Map<Long, Long> unitsSold = Map.of(1L, 5L, 2L, 3L, 3L, 4L, 4L, 2L, 5L, 2L, 6L, 2L, 7L, 3L, 8L, 2L);
+
+    private ProductRepository productRepository;
+    private OrderItemRepository orderItemRepository;
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog.put(1L, new String[] {"Green Tea", "Tea"});
+        catalog.put(2L, new String[] {"Oolong", "Tea"});
+        catalog.put(3L, new String[] {"Chamomile", "Herbs"});
+        catalog.put(4L, new String[] {"Mint", "Herbs"});
+        catalog.put(5L, new String[] {"Mint", "Herbs"});
+
+        productRepository = mock(ProductRepository.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+        when(productRepository.findNameAndCategoryAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            long afterId = call.getArgument(0);
+            List<Object[]> rows = new ArrayList<>();
+            catalog.forEach((id, product) -> {
+                if (id > afterId) {
+                    rows.add(new Object[] {id, product[0], product[1]});
+                }
+            });
+            return rows;
+        });
+        when(orderItemRepository.sumQuantityByProductExcludingStatus(any())).thenAnswer(call -> {
+            List<Object[]> rows = new ArrayList<>();
+            unitsSold.forEach((id, units) -> rows.add(new Object[] {id, units}));
+            return rows;
+        });
+
+        index = loadedIndex();
+    }
+
+    @Test
+    void entryAddedAtTheRemovedPositionReplacesIt() {
+        // Same name: every key is removed and added back at the position it came from
+        update(1L, "Green Tea", "Tea");
+        assertMatchesRebuild();
+        assertEquals(List.of("Green Tea"), texts("green"));
+
+        // The new key sorts right after the removed one
+        update(1L, "Green Teas", "Tea");
+        assertMatchesRebuild();
+        assertEquals(List.of("Green Teas"), texts("green"));
+        assertEquals(List.of("Tea", "Green Teas"), texts("tea"));
+    }
+
+    @Test
+    void renameIntoAnotherCategoryMovesItsSales() {
+        update(3L, "Chamomile Blend", "Tea");
+        assertMatchesRebuild();
+
+        assertEquals(List.of("Chamomile Blend"), texts("cham"));
+        assertEquals(List.of("Chamomile Blend"), texts("blend"));
+        assertEquals(12L, unitsOf("tea", "Tea"), "Tea gains the product's sales");
+        assertEquals(4L, unitsOf("herbs", "Herbs"), "Herbs loses them");
+
+        // And back: the removed keys, "chamomile blend" then "blend", are not in key order
+        update(3L, "Chamomile", "Herbs");
+        assertMatchesRebuild();
+        assertEquals(List.of(), texts("blend"));
+        assertEquals(8L, unitsOf("herbs", "Herbs"));
+
+        // Moving every product out drops the category
+        update(3L, "Chamomile", "Tea");
+        update(4L, "Mint", "Tea");
+        update(5L, "Mint", "Tea");
+        assertMatchesRebuild();
+        assertEquals(List.of(), texts("herbs"));
+        assertEquals(16L, unitsOf("tea", "Tea"));
+    }
+
+    @Test
+    void deletedProductLeavesNoEntriesBehind() {
+        delete(2L);
+        assertMatchesRebuild();
+        assertEquals(List.of(), texts("oolong"));
+        assertEquals(5L, unitsOf("tea", "Tea"));
+
+        delete(1L);
+        assertMatchesRebuild();
+        assertEquals(List.of(), texts("tea"), "a category with no products is not suggested");
+    }
+
+    @Test
+    void tiedKeysAndTiedRankingsAreResolvedPerProduct() {
+        // Products 4 and 5 share every key; deleting one must remove exactly its own entry
+        assertEquals(List.of(4L, 5L), productIds("mint"));
+        delete(4L);
+        assertMatchesRebuild();
+        assertEquals(List.of(5L), productIds("mint"));
+
+        // Equal sales: shorter text first, then alphabetical
+        update(6L, "Mist", "Herbs");
+        update(8L, "Mint Leaf", "Herbs");
+        assertMatchesRebuild();
+        assertEquals(List.of("Mint", "Mist", "Mint Leaf"), texts("mi"));
+        assertEquals(List.of("Mint"), texts("mi", 1), "the tie at the limit keeps the better-ranked one");
+
+        // Same text and sales: the category comes before the product
+        update(7L, "Tisane", "Tisane");
+        assertMatchesRebuild();
+        List<ProductSuggestionDto> tisane = index.suggest("tisane", 10);
+        assertEquals(List.of("CATEGORY", "PRODUCT"), tisane.stream().map(ProductSuggestionDto::getType).toList());
+        assertEquals(tisane.get(0).getUnitsSold(), tisane.get(1).getUnitsSold());
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private ProductSuggestIndex loadedIndex() {
+        ProductSuggestIndex loaded = new ProductSuggestIndex(productRepository, orderItemRepository);
+        ReflectionTestUtils.setField(loaded, "enabled", true);
+        ReflectionTestUtils.setField(loaded, "maxLimit", 20);
+        ReflectionTestUtils.setField(loaded, "loadBatchSize", 1000);
+        loaded.rebuild();
+        return loaded;
+    }
+
+    // Outside a transaction the change is applied straight away
+    private void update(Long id, String name, String category) {
+        catalog.put(id, new String[] {name, category});
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        index.indexAfterCommit(product);
+    }
+
+    private void delete(Long id) {
+        catalog.remove(id);
+        index.removeAfterCommit(id);
+    }
+
+    private void assertMatchesRebuild() {
+        ProductSuggestIndex.Snapshot merged = snapshotOf(index);
+        for (int i = 1; i < merged.keys.length; i++) {
+            int at = i;
+            assertTrue(merged.keys[i - 1].compareTo(merged.keys[i]) <= 0,
+                    () -> "keys out of order at " + at + ": " + merged.keys[at - 1] + " > " + merged.keys[at]);
+        }
+        assertEquals(entries(snapshotOf(loadedIndex())), entries(merged));
+    }
+
+    private static ProductSuggestIndex.Snapshot snapshotOf(ProductSuggestIndex index) {
+        return (ProductSuggestIndex.Snapshot) ReflectionTestUtils.getField(index, "snapshot");
+    }
+
+    // Equal keys may lead to different targets in any order, so the entries are compared sorted
+    private static List<String> entries(ProductSuggestIndex.Snapshot snapshot) {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < snapshot.keys.length; i++) {
+            ProductSuggestIndex.Target target = snapshot.targets[i];
+            entries.add(snapshot.keys[i] + " -> " + target.type() + " " + target.text()
+                    + " #" + target.productId() + " sold " + target.unitsSold());
+        }
+        entries.sort(null);
+        return entries;
+    }
+
+    private List<String> texts(String prefix) {
+        return texts(prefix, 10);
+    }
+
+    private List<String> texts(String prefix, int limit) {
+        return index.suggest(prefix, limit).stream().map(ProductSuggestionDto::getText).toList();
+    }
+
+    private List<Long> productIds(String prefix) {
+        return index.suggest(prefix, 10).stream().map(ProductSuggestionDto::getProductId).sorted().toList();
+    }
+
+    private long unitsOf(String prefix, String category) {
+        return index.suggest(prefix, 10).stream()
+                .filter(suggestion -> suggestion.getType().equals("CATEGORY") && suggestion.getText().equals(category))
+                .mapToLong(ProductSuggestionDto::getUnitsSold)
+                .findFirst()
+                .orElseThrow();
+    }
+}
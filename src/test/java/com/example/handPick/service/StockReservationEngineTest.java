@@ -0,0 +1,147 @@
+package com.example.handPick.service;
+
+import com.example.handPick.model.Cart;
+import com.example.handPick.repository.CartItemRepository;
+import com.example.handPick.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockReservationEngineTest {
+
+    private static final long PRODUCT_ID = 42L;
+
+    private ProductRepository productRepository;
+    private StockReservationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+        when(cartItemRepository.sumQuantityByUserAndProductForCartStatus(Cart.CartStatus.ACTIVE)).thenReturn(List.of());
+        engine = new StockReservationEngine(productRepository, cartItemRepository);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "stripeCount", 64);
+        ReflectionTestUtils.setField(engine, "holdTtlMs", 60_000L);
+        engine.init();
+        when(productRepository.findAllStockQuantities()).thenReturn(stockRows(10));
+        engine.rebuild();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void keysOfOneStripeSpreadAcrossItsTable() {
+        // 64 stripes: the top 6 bits of the hash pick the stripe
+        int stripeShift = 64 - 6;
+        StockReservationEngine.LongIntMap map = new StockReservationEngine.LongIntMap();
+        int keys = 0;
+        for (long productId = 1; keys < 3127; productId++) {
+            if (StockReservationEngine.stripeIndex(productId, stripeShift) == 0) {
+                map.put(productId, 1);
+                keys++;
+            }
+        }
+        // Uniform hashing of 3127 keys into 4096 slots gives about 2190 distinct home slots and
+        // lookups of under 3 probes; keys sharing their low hash bits pile onto 64 home slots
+        assertTrue(map.distinctHomeSlots() > keys / 2, "distinct home slots " + map.distinctHomeSlots());
+        assertTrue(map.meanProbeLength() < 4, "mean probe length " + map.meanProbeLength());
+    }
+
+    @Test
+    void reconcileSkipsProductWithCommittedButUnappliedCheckout() {
+        TransactionSynchronizationManager.initSynchronization();
+        engine.onCheckoutCommitted(1L, Map.of(PRODUCT_ID, 3));
+
+        // The checkout has committed in the database, but its afterCommit has not run yet
+        when(productRepository.findAllStockQuantities()).thenReturn(stockRows(7));
+        engine.reconcileStock();
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(7, engine.getAvailable(PRODUCT_ID));
+        engine.reconcileStock();
+        assertEquals(7, engine.getAvailable(PRODUCT_ID));
+    }
+
+    @Test
+    void reconcileSkipsProductChangedAfterTheDatabaseWasRead() {
+        AtomicInteger reads = new AtomicInteger();
+        when(productRepository.findAllStockQuantities()).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                // A restock commits and is applied while the reconcile is between read and write
+                engine.onStockChanged(PRODUCT_ID, 5);
+                return stockRows(10);
+            }
+            return stockRows(15);
+        });
+
+        engine.reconcileStock();
+        assertEquals(15, engine.getAvailable(PRODUCT_ID));
+        engine.reconcileStock();
+        assertEquals(15, engine.getAvailable(PRODUCT_ID));
+    }
+
+    @Test
+    void rolledBackCheckoutLeavesStockAndUnblocksReconcile() {
+        TransactionSynchronizationManager.initSynchronization();
+        engine.onCheckoutCommitted(1L, Map.of(PRODUCT_ID, 3));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(10, engine.getAvailable(PRODUCT_ID));
+        when(productRepository.findAllStockQuantities()).thenReturn(stockRows(8));
+        engine.reconcileStock();
+        assertEquals(8, engine.getAvailable(PRODUCT_ID));
+    }
+
+    @Test
+    void rollbackRestoresTheHoldFromBeforeTheTransaction() {
+        assertTrue(engine.hold(1L, PRODUCT_ID, 3));
+
+        TransactionSynchronizationManager.initSynchronization();
+        // e.g. a flushed pending quantity followed by another adjustment in the same checkout
+        assertTrue(engine.hold(1L, PRODUCT_ID, 5));
+        assertTrue(engine.hold(1L, PRODUCT_ID, 7));
+        assertTrue(engine.hold(2L, PRODUCT_ID, 1));
+        assertEquals(2, engine.getAvailable(PRODUCT_ID));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(7, engine.getAvailable(PRODUCT_ID), "stock less the 3 held before the transaction");
+        assertEquals(10, engine.getAvailableFor(1L, PRODUCT_ID));
+        assertEquals(7, engine.getAvailableFor(2L, PRODUCT_ID));
+    }
+
+    // ─── Private Helpers ──────────────────────────────────────────────────
+
+    private static List<Object[]> stockRows(int stock) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{PRODUCT_ID, stock});
+        return rows;
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
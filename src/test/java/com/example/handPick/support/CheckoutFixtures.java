@@ -0,0 +1,93 @@
+package com.example.handPick.support;
+
+import com.example.handPick.dto.AddressDto;
+import com.example.handPick.dto.CheckoutRequest;
+import com.example.handPick.model.Cart;
+import com.example.handPick.model.CartItem;
+import com.example.handPick.model.Order;
+import com.example.handPick.model.Product;
+import com.example.handPick.model.User;
+import com.example.handPick.repository.CartRepository;
+import com.example.handPick.repository.ProductRepository;
+import com.example.handPick.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates products, users and active carts for service-level integration tests.
+ * Carts are written straight through the repositories, so they do not touch the stock
+ * reservation ledger; tests that need a reservation make it explicitly.
+ */
+@Component
+public class CheckoutFixtures {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final CartRepository cartRepository;
+
+    public CheckoutFixtures(ProductRepository productRepository, UserRepository userRepository,
+                            CartRepository cartRepository) {
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.cartRepository = cartRepository;
+    }
+
+    public Product product(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("test product");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setPurchasePrice(new BigDecimal("5.00"));
+        product.setStockQuantity(stock);
+        product.setCategory("test");
+        product.setHotStock(false);
+        return productRepository.save(product);
+    }
+
+    public User user() {
+        int n = SEQUENCE.incrementAndGet();
+        User user = new User();
+        user.setMobileNumber(String.format("8%09d", n));
+        user.setUsername("buyer" + n);
+        user.setPassword("not-a-real-hash");
+        user.setRole("USER");
+        return userRepository.save(user);
+    }
+
+    /**
+     * An ACTIVE cart for the user holding the given quantity of each product.
+     */
+    public Cart cart(User user, int quantity, Product... products) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart.setStatus(Cart.CartStatus.ACTIVE);
+        for (Product product : products) {
+            CartItem item = new CartItem(product, quantity, cart, null);
+            cart.getItems().add(item);
+            cart.includeInTotals(item);
+        }
+        cart.updateGstAmount(0.18);
+        return cartRepository.save(cart);
+    }
+
+    /**
+     * Cash-on-delivery checkout to a one-time address.
+     */
+    public static CheckoutRequest codCheckout() {
+        AddressDto address = new AddressDto();
+        address.setStreet("1 Test Street");
+        address.setCity("Pune");
+        address.setState("MH");
+        address.setPostalCode("411001");
+        address.setCountry("IN");
+        CheckoutRequest request = new CheckoutRequest();
+        request.setPaymentMethod(Order.PaymentMethod.COD);
+        request.setNewAddress(address);
+        request.setSaveAddressAs("ONE_TIME");
+        return request;
+    }
+}